@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Встроенная H2 со схемой приложения и генераторы данных для бенчмарков; случайность с фиксированным seed
+public final class BenchmarkDatabase {
+    private static final int INSERT_CHUNK = 10_000;
+    private static final long SEED = 42;
+
+    private BenchmarkDatabase() {
+    }
+
+    public static EmbeddedDatabase create() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+    }
+
+    public static void insertFilms(JdbcTemplate jdbc, int films) {
+        Date releaseDate = Date.valueOf(LocalDate.of(2000, 1, 1));
+        List<Object[]> rows = new ArrayList<>(films);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            rows.add(new Object[]{filmId, "Film " + filmId, "Description " + filmId, releaseDate, 120,
+                    (int) (filmId % 5) + 1});
+        }
+        insertInChunks(jdbc, """
+                INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                VALUES (?, ?, ?, ?, ?, ?)""", rows);
+    }
+
+    // Один жанр из шести и год выхода из 25 на фильм - для топов по жанру и году
+    public static void insertGenresAndYears(JdbcTemplate jdbc, int films) {
+        List<Object[]> rows = new ArrayList<>(films);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            rows.add(new Object[]{filmId, (int) (filmId % 6) + 1});
+        }
+        insertInChunks(jdbc, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", rows);
+        jdbc.update("UPDATE films SET release_date = DATEADD(YEAR, MOD(film_id, 25), DATE '2000-01-01')");
+    }
+
+    public static void insertUsers(JdbcTemplate jdbc, int users) {
+        Date birthday = Date.valueOf(LocalDate.of(1990, 1, 1));
+        List<Object[]> rows = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            rows.add(new Object[]{userId, "user" + userId + "@test.org", "user" + userId, "User " + userId, birthday});
+        }
+        insertInChunks(jdbc, "INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)",
+                rows);
+    }
+
+    // Лайки с перекосом: фильмы с меньшим id популярнее, как в реальном каталоге
+    public static void insertLikes(JdbcTemplate jdbc, int films, int users, int likesPerUser) {
+        Random random = new Random(SEED);
+        List<Object[]> rows = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long currentUserId = userId;
+            random.longs(likesPerUser * 2L, 0, films)
+                    .map(i -> (long) (films * Math.pow((double) i / films, 2)) + 1)
+                    .distinct()
+                    .limit(likesPerUser)
+                    .forEach(filmId -> rows.add(new Object[]{filmId, currentUserId}));
+        }
+        insertInChunks(jdbc, "INSERT INTO likes (film_id, user_id) VALUES (?, ?)", rows);
+        jdbc.update("""
+                UPDATE films f SET likes_count = (SELECT COUNT(*) FROM likes l WHERE l.film_id = f.film_id)""");
+    }
+
+    public static void insertFriendships(JdbcTemplate jdbc, int users, int friendsPerUser) {
+        Random random = new Random(SEED);
+        List<Object[]> rows = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long currentUserId = userId;
+            random.longs(friendsPerUser * 2L, 1, users + 1)
+                    .filter(friendId -> friendId != currentUserId)
+                    .distinct()
+                    .limit(friendsPerUser)
+                    .forEach(friendId -> rows.add(new Object[]{currentUserId, friendId}));
+        }
+        insertInChunks(jdbc, "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", rows);
+    }
+
+    private static void insertInChunks(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += INSERT_CHUNK) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + INSERT_CHUNK, rows.size())));
+        }
+    }
+}
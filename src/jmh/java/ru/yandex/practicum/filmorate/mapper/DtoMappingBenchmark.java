@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.lang.reflect.Constructor;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Преобразование моделей в DTO для списков того же размера, что отдают GET /films и GET /users
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+    @Param({"1000", "10000"})
+    private int size;
+
+    private FilmMapper filmMapper;
+    private UserMapper userMapper;
+    private List<Film> films;
+    private List<User> users;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        filmMapper = newMapper(FilmMapper.class);
+        userMapper = newMapper(UserMapper.class);
+        List<Genre> genres = List.of(new Genre(1, "Комедия"), new Genre(2, "Драма"));
+        films = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            films.add(new Film(id, "Film " + id, "Description " + id, LocalDate.of(2000, 1, 1), 120,
+                    genres, new Mpa(1, "G")));
+            users.add(new User(id, "user" + id + "@test.org", "user" + id, "User " + id,
+                    LocalDate.of(1990, 1, 1)));
+        }
+    }
+
+    @Benchmark
+    public void filmToDto(Blackhole blackhole) {
+        for (Film film : films) {
+            blackhole.consume(filmMapper.toDto(film));
+        }
+    }
+
+    @Benchmark
+    public void userToDto(Blackhole blackhole) {
+        for (User user : users) {
+            blackhole.consume(userMapper.mapToUserDto(user));
+        }
+    }
+
+    // Конструкторы мапперов закрыты: экземпляры создаёт Spring
+    private static <T> T newMapper(Class<T> type) throws ReflectiveOperationException {
+        Constructor<T> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение загрузки каталога одним JOIN-запросом с жанрами и двухфазной загрузки (фильмы + жанры отдельно)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmLoadingBenchmark {
+    private static final String DESCRIPTION = "x".repeat(200);
+
+    @Param({"1", "3", "6"})
+    private int genresPerFilm;
+
+    @Param({"5000"})
+    private int films;
+
+    private EmbeddedDatabase database;
+    private FilmRepository repository;
+
+    @Setup
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+        List<Object[]> filmRows = new ArrayList<>(films);
+        List<Object[]> genreRows = new ArrayList<>(films * genresPerFilm);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            filmRows.add(new Object[]{filmId, "Film " + filmId, DESCRIPTION,
+                    Date.valueOf(LocalDate.of(2000, 1, 1)), 120, 1});
+            for (int genreId = 1; genreId <= genresPerFilm; genreId++) {
+                genreRows.add(new Object[]{filmId, genreId});
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO films (film_id, name, description, release_date, duration, mpa_id)
+                VALUES (?, ?, ?, ?, ?, ?)""", filmRows);
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(jdbc);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        repository = new FilmRepository(jdbc, leaderboard, new LikesMatrix(), new FilmSearchIndex(leaderboard), referenceData,
+                new FilmRowMapper(referenceData), new EntityVersions(), LikeWriteBehindBuffer.disabled());
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> joinedRows() {
+        List<Film> result = new ArrayList<>(films);
+        repository.exportFilms(result::add);
+        return result;
+    }
+
+    @Benchmark
+    public List<Film> twoPhase() {
+        return repository.getAllFilms();
+    }
+}
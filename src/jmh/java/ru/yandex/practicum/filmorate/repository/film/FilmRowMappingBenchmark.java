@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Разбор строк фильмов без базы: синтетический ResultSet в памяти, чтобы измерять только маппинг
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmRowMappingBenchmark {
+    private static final String DESCRIPTION = "x".repeat(200);
+
+    @Param({"1000", "10000"})
+    private int films;
+
+    @Param({"0", "3"})
+    private int genresPerFilm;
+
+    private InMemoryResultSet filmRows;
+    private InMemoryResultSet joinedRows;
+    private ReferenceDataRegistry referenceData;
+    private FilmRowMapper rowMapper;
+
+    @Setup
+    public void setUp() {
+        filmRows = filmColumns();
+        joinedRows = filmColumns();
+        joinedRows.addColumn("genre_id", Types.INTEGER, 10, 0);
+        LocalDate releaseDate = LocalDate.of(2000, 1, 1);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            filmRows.addRow(filmId, "Film " + filmId, DESCRIPTION, releaseDate, 120, 1);
+            if (genresPerFilm == 0) {
+                joinedRows.addRow(filmId, "Film " + filmId, DESCRIPTION, releaseDate, 120, 1, null);
+            }
+            for (int genreId = 1; genreId <= genresPerFilm; genreId++) {
+                joinedRows.addRow(filmId, "Film " + filmId, DESCRIPTION, releaseDate, 120, 1, genreId);
+            }
+        }
+        referenceData = new ReferenceDataRegistry(
+                IntStream.rangeClosed(1, 6).mapToObj(id -> new Genre(id, "Genre " + id)).toList(),
+                List.of(new Mpa(1, "G"), new Mpa(2, "PG"), new Mpa(3, "PG-13")));
+        rowMapper = new FilmRowMapper(referenceData);
+    }
+
+    @Benchmark
+    public void rowMapper(Blackhole blackhole) throws SQLException {
+        filmRows.beforeFirst();
+        int rowNum = 0;
+        while (filmRows.next()) {
+            blackhole.consume(rowMapper.mapRow(filmRows, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public Integer streamingExtractor(Blackhole blackhole) throws SQLException {
+        joinedRows.beforeFirst();
+        return new FilmRepository.FilmStreamingExtractor(rowMapper, referenceData, blackhole::consume).extractData(joinedRows);
+    }
+
+    private static InMemoryResultSet filmColumns() {
+        InMemoryResultSet rs = new InMemoryResultSet();
+        rs.setAutoClose(false);
+        rs.addColumn("film_id", Types.BIGINT, 19, 0);
+        rs.addColumn("name", Types.VARCHAR, 100, 0);
+        rs.addColumn("description", Types.VARCHAR, 200, 0);
+        rs.addColumn("release_date", Types.DATE, 10, 0);
+        rs.addColumn("duration", Types.INTEGER, 10, 0);
+        rs.addColumn("mpa_id", Types.INTEGER, 10, 0);
+        return rs;
+    }
+
+    // SimpleResultSet не поддерживает getObject(String, Class), которым FilmRowMapper читает дату
+    private static final class InMemoryResultSet extends SimpleResultSet {
+        @Override
+        public <T> T getObject(String columnLabel, Class<T> type) throws SQLException {
+            return type.cast(getObject(columnLabel));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// GET /films/search на индексе без базы: названия и описания из синтетического русского словаря,
+// частоты слов по закону Ципфа, лайки случайные
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final String[] SYLLABLES = {"ба", "ве", "го", "да", "жи", "зо", "ка", "ле", "ми", "но", "пу",
+            "ро", "су", "ти", "фа", "хо", "це", "чу", "ша", "ям"};
+    private static final int VOCABULARY = 50_000;
+    private static final int NAME_WORDS = 3;
+    private static final int DESCRIPTION_WORDS = 20;
+
+    @Param({"1000000"})
+    private int films;
+
+    @Param({"10"})
+    private int limit;
+
+    private FilmSearchIndex index;
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i; word.length() < 6 || n > 0; n /= SYLLABLES.length) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+            }
+            words[i] = word.toString();
+        }
+        double[] cumulative = new double[VOCABULARY];
+        double total = 0;
+        for (int i = 0; i < VOCABULARY; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+
+        Map<Long, Long> likes = new HashMap<>(films * 2);
+        Map<Long, String> texts = new HashMap<>(films * 2);
+        for (long filmId = 1; filmId <= films; filmId++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < NAME_WORDS + DESCRIPTION_WORDS; i++) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+                text.append(words[rank >= 0 ? rank : Math.min(-rank - 1, VOCABULARY - 1)]).append(' ');
+            }
+            texts.put(filmId, text.toString());
+            likes.put(filmId, (long) random.nextInt(1000));
+        }
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.reset(likes);
+        index = new FilmSearchIndex(leaderboard);
+        index.reset(texts);
+    }
+
+    // Частое слово и префикс редкого: пересечение, затем проверка префикса по словам кандидатов
+    @Benchmark
+    public List<Long> commonWordAndPrefix() {
+        return index.search(words[10] + " " + words[5000].substring(0, 4), limit);
+    }
+
+    // Два слова средней частоты целиком
+    @Benchmark
+    public List<Long> twoWords() {
+        return index.search(words[100] + " " + words[300], limit);
+    }
+
+    // Автодополнение по короткому префиксу: совпадений много, ранжирование обходом рейтинга
+    @Benchmark
+    public List<Long> shortPrefix() {
+        return index.search(words[0].substring(0, 2), limit);
+    }
+
+    // Автодополнение по префиксу редкого слова: совпадений мало, сортировка кандидатов
+    @Benchmark
+    public List<Long> rarePrefix() {
+        return index.search(words[40_000].substring(0, 7), limit);
+    }
+}
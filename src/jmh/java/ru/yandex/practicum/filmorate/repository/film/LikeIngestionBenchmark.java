@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение поштучной записи лайков (транзакция на каждый), пакетной через applyLikes и поштучной
+// с отложенной записью (журнал с fsync на каждый лайк и сброс буфера в базу одной транзакцией).
+// Каждый вызов ставит и снимает одни и те же лайки, чтобы состояние базы между вызовами не менялось.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeIngestionBenchmark {
+    private static final int FILMS = 100;
+
+    @Param({"1000"})
+    private int likes;
+
+    // fsync журнала на каждый лайк у writeBehind
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private EmbeddedDatabase database;
+    private SingleConnectionDataSource dataSource;
+    private FilmRepository repository;
+    private FilmRepository writeBehindRepository;
+    private LikeWriteBehindBuffer likeBuffer;
+    private Path journalDir;
+    private TransactionTemplate transactions;
+    private List<LikeOperation> additions;
+    private List<LikeOperation> removals;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        int users = likes / FILMS + 1;
+        List<Object[]> filmRows = new ArrayList<>(FILMS);
+        for (long filmId = 1; filmId <= FILMS; filmId++) {
+            filmRows.add(new Object[]{filmId, "Film " + filmId, Date.valueOf(LocalDate.of(2000, 1, 1)), 120, 1});
+        }
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            userRows.add(new Object[]{userId, "user" + userId + "@test.com", "user" + userId});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO films (film_id, name, release_date, duration, mpa_id)
+                VALUES (?, ?, ?, ?, ?)""", filmRows);
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, email, login) VALUES (?, ?, ?)", userRows);
+
+        additions = new ArrayList<>(likes);
+        removals = new ArrayList<>(likes);
+        for (int i = 0; i < likes; i++) {
+            long userId = i / FILMS + 1;
+            long filmId = i % FILMS + 1;
+            additions.add(new LikeOperation(userId, filmId, LikeOperation.Type.ADD));
+            removals.add(new LikeOperation(userId, filmId, LikeOperation.Type.REMOVE));
+        }
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(jdbc);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        repository = new FilmRepository(jdbc, leaderboard, new LikesMatrix(), new FilmSearchIndex(leaderboard), referenceData,
+                new FilmRowMapper(referenceData), new EntityVersions(), LikeWriteBehindBuffer.disabled());
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactions = new TransactionTemplate(transactionManager);
+
+        // Сброс только из бенчмарка: соединение одно на все потоки
+        journalDir = Files.createTempDirectory("likes-journal");
+        LikesMatrix likesMatrix = new LikesMatrix();
+        likeBuffer = new LikeWriteBehindBuffer(jdbc, transactionManager, likesMatrix, true, journalDir,
+                Integer.MAX_VALUE, Duration.ofHours(1), fsync);
+        likeBuffer.start();
+        writeBehindRepository = new FilmRepository(jdbc, leaderboard, likesMatrix, new FilmSearchIndex(leaderboard),
+                referenceData, new FilmRowMapper(referenceData), new EntityVersions(), likeBuffer);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        likeBuffer.close();
+        FileSystemUtils.deleteRecursively(journalDir);
+        dataSource.destroy();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public void perRequest() {
+        for (LikeOperation operation : additions) {
+            transactions.executeWithoutResult(status ->
+                    repository.addLike(operation.getUserId(), operation.getFilmId()));
+        }
+        for (LikeOperation operation : removals) {
+            transactions.executeWithoutResult(status ->
+                    repository.removeLike(operation.getUserId(), operation.getFilmId()));
+        }
+    }
+
+    @Benchmark
+    public void batched() {
+        transactions.executeWithoutResult(status -> repository.applyLikes(additions));
+        transactions.executeWithoutResult(status -> repository.applyLikes(removals));
+    }
+
+    @Benchmark
+    public void writeBehind() {
+        for (LikeOperation operation : additions) {
+            writeBehindRepository.addLike(operation.getUserId(), operation.getFilmId());
+        }
+        likeBuffer.flush();
+        for (LikeOperation operation : removals) {
+            writeBehindRepository.removeLike(operation.getUserId(), operation.getFilmId());
+        }
+        likeBuffer.flush();
+    }
+}
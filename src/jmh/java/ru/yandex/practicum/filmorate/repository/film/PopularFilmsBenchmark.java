@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.BenchmarkDatabase;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /films/popular на каталоге заданного размера, в том числе с фильтром по жанру и году
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularFilmsBenchmark {
+    @Param({"1000", "10000"})
+    private int films;
+
+    @Param({"1000"})
+    private int users;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    @Param({"10", "100"})
+    private int count;
+
+    private EmbeddedDatabase database;
+    private FilmRepository repository;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkDatabase.insertFilms(jdbcTemplate, films);
+        BenchmarkDatabase.insertGenresAndYears(jdbcTemplate, films);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, users);
+        BenchmarkDatabase.insertLikes(jdbcTemplate, films, users, likesPerUser);
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(
+                new SingleConnectionDataSource(DataSourceUtils.getConnection(database), true));
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(jdbc);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        repository = new FilmRepository(jdbc, leaderboard, new LikesMatrix(), new FilmSearchIndex(leaderboard), referenceData,
+                new FilmRowMapper(referenceData), new EntityVersions(), LikeWriteBehindBuffer.disabled());
+        repository.loadLeaderboard();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<Film> theMostPopularFilms() {
+        return repository.getTheMostPopularFilms(count, null, null);
+    }
+
+    // Секция жанр + год: около 1/150 каталога
+    @Benchmark
+    public List<Film> theMostPopularFilmsByGenreAndYear() {
+        return repository.getTheMostPopularFilms(count, 1, 2010);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации фильмов по матрице лайков в памяти. Популярность фильмов степенная: несколько хитов собирают
+// лайки у заметной доли пользователей, поэтому обход пересечений для их поклонников самый дорогой.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RecommendationsBenchmark {
+    @Param({"100000"})
+    private int users;
+
+    @Param({"50000"})
+    private int films;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    @Param({"10"})
+    private int limit;
+
+    private LikesMatrix matrix;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Long, long[]> likes = new HashMap<>(users * 2);
+        for (long userId = 1; userId <= users; userId++) {
+            likes.put(userId, random.doubles(likesPerUser * 2L)
+                    .mapToLong(u -> (long) (films * u * u * u) + 1)
+                    .distinct()
+                    .limit(likesPerUser)
+                    .toArray());
+        }
+        matrix = new LikesMatrix();
+        matrix.reset(likes);
+    }
+
+    @Benchmark
+    public List<Long> randomUser() {
+        return matrix.recommend(ThreadLocalRandom.current().nextLong(1, users + 1), limit);
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        long userId = ThreadLocalRandom.current().nextLong(1, users + 1);
+        matrix.addLike(userId, 1);
+        matrix.removeLike(userId, 1);
+    }
+}
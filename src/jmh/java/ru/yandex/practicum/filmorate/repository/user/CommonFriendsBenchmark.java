@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.yandex.practicum.filmorate.BenchmarkDatabase;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// GET /users/{id}/friends/common/{otherId} для случайной пары пользователей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonFriendsBenchmark {
+    @Param({"1000", "10000"})
+    private int users;
+
+    @Param({"50"})
+    private int friendsPerUser;
+
+    private EmbeddedDatabase database;
+    private UserRepository repository;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabase.create();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        BenchmarkDatabase.insertUsers(jdbcTemplate, users);
+        BenchmarkDatabase.insertFriendships(jdbcTemplate, users, friendsPerUser);
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(
+                new SingleConnectionDataSource(DataSourceUtils.getConnection(database), true));
+        repository = new UserRepository(jdbc, new UserRowMapper(), new EmailBloomFilter(false, users, 0.01),
+                new FriendshipGraph(), new EntityVersions());
+        repository.loadFriendshipGraph();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public List<User> commonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.getCommonFriends(random.nextLong(1, users + 1), random.nextLong(1, users + 1));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочная проверка: время проверки email при регистрации не должно расти с числом пользователей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailUniquenessBenchmark {
+    private static final int INSERT_CHUNK = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private EmbeddedDatabase database;
+    private UserRepository indexedLookup;
+    private UserRepository bloomFilteredLookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .setScriptEncoding("UTF-8")
+                .addScripts("schema.sql", "data.sql")
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        Date birthday = Date.valueOf(LocalDate.of(1990, 1, 1));
+        for (int from = 0; from < users; from += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>(INSERT_CHUNK);
+            for (int i = from; i < Math.min(from + INSERT_CHUNK, users); i++) {
+                rows.add(new Object[]{"user" + i + "@test.org", "user" + i, "User " + i, birthday});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", rows);
+        }
+
+        // Одно переиспользуемое соединение вместо нового на каждый вызов, как при работе через пул
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(
+                new SingleConnectionDataSource(DataSourceUtils.getConnection(database), true));
+        indexedLookup = new UserRepository(jdbc, new UserRowMapper(),
+                new EmailBloomFilter(false, users, 0.01), new FriendshipGraph(), new EntityVersions());
+        bloomFilteredLookup = new UserRepository(jdbc, new UserRowMapper(),
+                new EmailBloomFilter(true, users, 0.01), new FriendshipGraph(), new EntityVersions());
+        bloomFilteredLookup.loadEmailFilter();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Benchmark
+    public boolean indexedLookupOfUsedEmail() {
+        return indexedLookup.existsByEmail(usedEmail());
+    }
+
+    @Benchmark
+    public boolean indexedLookupOfNewEmail() {
+        return indexedLookup.existsByEmail(newEmail());
+    }
+
+    @Benchmark
+    public boolean bloomFilteredLookupOfNewEmail() {
+        return bloomFilteredLookup.existsByEmail(newEmail());
+    }
+
+    private String usedEmail() {
+        return "user" + ThreadLocalRandom.current().nextInt(users) + "@test.org";
+    }
+
+    private String newEmail() {
+        return "new" + ThreadLocalRandom.current().nextInt() + "@test.org";
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации друзей на синтетическом графе со степенным распределением: мало "звёзд" с тысячами друзей,
+// большинство пользователей с десятком. Друзей выбирают с перекосом в сторону популярных пользователей.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+    private static final int MIN_DEGREE = 5;
+    private static final double DEGREE_EXPONENT = 2.1;
+
+    @Param({"100000"})
+    private int users;
+
+    @Param({"5000"})
+    private int maxDegree;
+
+    @Param({"10"})
+    private int limit;
+
+    private FriendshipGraph graph;
+    private long hubUserId;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Long, long[]> friends = new HashMap<>(users * 2);
+        int hubDegree = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            double pareto = MIN_DEGREE / Math.pow(1 - random.nextDouble(), 1 / (DEGREE_EXPONENT - 1));
+            int degree = (int) Math.min(maxDegree, pareto);
+            long currentUserId = userId;
+            long[] friendIds = random.doubles(degree * 2L)
+                    .mapToLong(u -> (long) (users * u * u * u) + 1)
+                    .filter(friendId -> friendId != currentUserId)
+                    .distinct()
+                    .limit(degree)
+                    .toArray();
+            friends.put(userId, friendIds);
+            if (friendIds.length > hubDegree) {
+                hubDegree = friendIds.length;
+                hubUserId = userId;
+            }
+        }
+        graph = new FriendshipGraph();
+        graph.reset(friends);
+    }
+
+    @Benchmark
+    public List<FriendshipGraph.Suggestion> typicalUser() {
+        return graph.suggestions(ThreadLocalRandom.current().nextLong(1, users + 1), limit);
+    }
+
+    @Benchmark
+    public List<FriendshipGraph.Suggestion> hubUser() {
+        return graph.suggestions(hubUserId, limit);
+    }
+}
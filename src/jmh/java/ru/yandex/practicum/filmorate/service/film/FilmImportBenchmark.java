@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.service.validation.ValidationServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Импорт в файловую H2, как в приложении: результат в фильмах в секунду. Каждый вызов добавляет
+// FILMS новых фильмов, за итерацию каталог вырастает до нескольких сотен тысяч
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FilmImportBenchmark {
+    private static final int FILMS = 100_000;
+    private static final int CHUNK_SIZE = 5000;
+
+    private Path directory;
+    private SingleConnectionDataSource dataSource;
+    private FilmImportService importService;
+    private byte[] json;
+    private byte[] csv;
+
+    @Setup
+    public void generate() {
+        StringBuilder jsonText = new StringBuilder("[");
+        StringBuilder csvText = new StringBuilder("name,description,releaseDate,duration,mpaId,genreIds\n");
+        for (int i = 1; i <= FILMS; i++) {
+            String releaseDate = (1950 + i % 70) + "-01-01";
+            int mpaId = i % 5 + 1;
+            int genreId = i % 6 + 1;
+            jsonText.append(i == 1 ? "" : ",").append("{\"name\":\"Фильм ").append(i)
+                    .append("\",\"description\":\"Описание фильма номер ").append(i)
+                    .append("\",\"releaseDate\":\"").append(releaseDate)
+                    .append("\",\"duration\":").append(60 + i % 120)
+                    .append(",\"mpa\":{\"id\":").append(mpaId)
+                    .append("},\"genres\":[{\"id\":").append(genreId).append("}]}");
+            csvText.append("Фильм ").append(i).append(",Описание фильма номер ").append(i).append(',')
+                    .append(releaseDate).append(',').append(60 + i % 120).append(',').append(mpaId).append(',')
+                    .append(genreId).append('\n');
+        }
+        json = jsonText.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        csv = csvText.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Каждая итерация начинает с пустой базы, чтобы итерации измеряли импорт в каталог одного размера
+    @Setup(Level.Iteration)
+    public void createDatabase() throws IOException {
+        directory = Files.createTempDirectory("filmorate-import");
+        dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + directory.resolve("filmorate"), "sa", "", true);
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+        ReferenceDataRegistry referenceData = new ReferenceDataRegistry(jdbc);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        FilmRepository repository = new FilmRepository(jdbc, leaderboard, new LikesMatrix(),
+                new FilmSearchIndex(leaderboard), referenceData, new FilmRowMapper(referenceData), new EntityVersions(),
+                LikeWriteBehindBuffer.disabled());
+        importService = new FilmImportServiceImpl(repository, new ValidationServiceImpl(null, repository),
+                referenceData, new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), CHUNK_SIZE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropDatabase() throws IOException {
+        dataSource.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILMS)
+    public FilmImportResultDto importJson() {
+        return importService.importJson(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILMS)
+    public FilmImportResultDto importCsv() {
+        return importService.importCsv(new ByteArrayInputStream(csv));
+    }
+}
@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный тест: одно и то же приложение на файловой H2 в режиме платформенных и виртуальных потоков.
+// Каждое соединение — отдельный клиент, который в цикле запрашивает load.path для случайного пользователя
+// (по умолчанию список друзей — JDBC-запрос на каждый вызов). Печатает пропускную способность
+// и перцентили задержки по каждому уровню.
+// Режимы прогоняются в отдельных JVM; клиент и сервер делят процесс и лимит дескрипторов: на 10k соединений нужно ulimit -n > 20000
+public final class ThreadModeLoadTest {
+    private static final int USERS = 10_000;
+    private static final int FRIENDS_PER_USER = 20;
+
+    private ThreadModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("load.mode");
+        if (mode != null) {
+            runMode(mode.equals("virtual"));
+            return;
+        }
+        List<String> report = new ArrayList<>();
+        for (String childMode : List.of("platform", "virtual")) {
+            report.addAll(runInChildJvm(childMode));
+        }
+        System.out.println("mode\tconnections\trequests/s\tp50 ms\tp99 ms\terrors");
+        report.forEach(System.out::println);
+    }
+
+    // Каждый режим — в отдельной JVM, чтобы второй прогон не получал JIT-прогрев и кучу от первого
+    private static List<String> runInChildJvm(String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("load."))
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.addAll(List.of("-Dload.mode=" + mode, "-cp", System.getProperty("java.class.path"),
+                ThreadModeLoadTest.class.getName()));
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        List<String> rows;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            rows = output.lines().filter(line -> line.startsWith(mode + "\t")).toList();
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Прогон в режиме " + mode + " завершился с ошибкой");
+        }
+        return rows;
+    }
+
+    private static void runMode(boolean virtualThreads) throws Exception {
+        int[] connections = Arrays.stream(System.getProperty("load.connections", "1000,5000,10000").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+        Duration measurement = Duration.ofSeconds(Long.getLong("load.duration", 15));
+        String path = System.getProperty("load.path", "/users/{id}/friends");
+        String mode = virtualThreads ? "virtual" : "platform";
+
+        try (ServletWebServerApplicationContext context = start(virtualThreads)) {
+            seed(context.getBean(JdbcTemplate.class));
+            URI baseUri = URI.create("http://localhost:" + context.getWebServer().getPort());
+            for (int level : connections) {
+                System.out.println(mode + "\t" + run(baseUri, path, level, warmup, measurement));
+            }
+        }
+    }
+
+    private static ServletWebServerApplicationContext start(boolean virtualThreads) throws IOException {
+        Path databaseDir = Files.createTempDirectory("filmorate-load");
+        // Аргументы командной строки, а не properties(): значения по умолчанию уступили бы application.properties
+        return (ServletWebServerApplicationContext) new SpringApplicationBuilder(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=1000",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.url=jdbc:h2:file:" + databaseDir.resolve("filmorate"),
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.ru.yandex.practicum.filmorate=WARN");
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        Date birthday = Date.valueOf(LocalDate.of(1990, 1, 1));
+        List<Object[]> users = new ArrayList<>(USERS);
+        List<Object[]> friends = new ArrayList<>(USERS * FRIENDS_PER_USER);
+        for (long userId = 1; userId <= USERS; userId++) {
+            users.add(new Object[]{userId, "user" + userId + "@test.org", "user" + userId, "User " + userId, birthday});
+            for (int i = 1; i <= FRIENDS_PER_USER; i++) {
+                friends.add(new Object[]{userId, (userId + i * 97L) % USERS + 1});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", users);
+        jdbc.batchUpdate("MERGE INTO friends (user_id, friend_id) VALUES (?, ?)", friends);
+    }
+
+    private static String run(URI baseUri, String path, int connections, Duration warmup,
+                              Duration measurement) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + measurement.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            List<Future<long[]>> workers = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                workers.add(clients.submit(() -> client(http, baseUri, path, measureFrom, measureUntil, errors)));
+            }
+            latencies = new ArrayList<>(connections);
+            for (Future<long[]> worker : workers) {
+                latencies.add(worker.get());
+            }
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = measurement.toNanos() / 1e9;
+        return String.format("%d\t%.0f\t%.1f\t%.1f\t%d", connections, all.length / seconds,
+                percentile(all, 0.50), percentile(all, 0.99), errors.get());
+    }
+
+    // Задержки запросов, начатых в окне измерения; во время прогрева соединения открываются и прогреваются
+    private static long[] client(HttpClient http, URI baseUri, String path, long measureFrom,
+                                 long measureUntil, AtomicLong errors) {
+        long[] latencies = new long[64];
+        int size = 0;
+        long start;
+        while ((start = System.nanoTime()) < measureUntil) {
+            long userId = ThreadLocalRandom.current().nextLong(1, USERS + 1);
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path.replace("{id}", Long.toString(userId))))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    countError(errors, start, measureFrom);
+                    continue;
+                }
+            } catch (IOException e) {
+                countError(errors, start, measureFrom);
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (start >= measureFrom) {
+                if (size == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, size * 2);
+                }
+                latencies[size++] = System.nanoTime() - start;
+            }
+        }
+        return Arrays.copyOf(latencies, size);
+    }
+
+    private static void countError(AtomicLong errors, long start, long measureFrom) {
+        if (start >= measureFrom) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Включает @Timed на репозиториях; таймеры контроллеров (http.server.requests) и пула соединений
+// (hikaricp.*) Spring Boot Actuator регистрирует сам
+@Configuration
+public class MetricsConfig {
+    public static final String REPOSITORY_TIMER = "filmorate.repository";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Чтение с реплик: filmorate.datasource.replicas=<jdbc-url>[,<jdbc-url>...]. Транзакции
+// @Transactional(readOnly = true) получают соединение с реплики, отстающей не больше
+// filmorate.datasource.replica-max-staleness, всё остальное - с основной базы (spring.datasource.*).
+// LazyConnectionDataSourceProxy берёт соединение только при первом запросе, когда признак readOnly
+// транзакции уже известен. Пулы реплик настроены так же, как пул основной базы
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.replicas")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${filmorate.datasource.replicas}") List<String> replicaUrls,
+            @Value("${filmorate.datasource.replica-max-staleness:5s}") Duration maxStaleness) {
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i).strip());
+            config.setPoolName("replica-" + (i + 1));
+            replicas.add(new HikariDataSource(config));
+        }
+        log.info("Чтение с реплик включено: {} реплик, допустимое отставание {}", replicas.size(), maxStaleness);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxStaleness, Clock.systemUTC());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicationHeartbeat(
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            @Value("${filmorate.datasource.replica-heartbeat-interval:1s}") Duration interval) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replication-heartbeat").daemon().factory());
+        executor.scheduleWithFixedDelay(replicaRoutingDataSource::refresh, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        return executor;
+    }
+}
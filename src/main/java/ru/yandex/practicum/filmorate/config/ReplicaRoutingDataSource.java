@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Источник соединений для чтения: реплика по кругу среди тех, что отстают не больше maxStaleness, иначе
+// основная база. Отставание считается по отметке replication_heartbeat: основная база обновляет её
+// по расписанию, реплика получает вместе с остальными данными
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final String PRIMARY = "primary";
+    private static final String WRITE_HEARTBEAT = "MERGE INTO replication_heartbeat (id, beat) KEY (id) VALUES (1, ?)";
+    private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    // Номера реплик, которым сейчас можно отдавать чтение; до первой проверки чтение идёт в основную базу
+    private volatile List<Integer> freshReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxStaleness, Clock clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    // Одна итерация планировщика: новая отметка на основной базе и проверка отставания реплик
+    public void refresh() {
+        try {
+            writeHeartbeat();
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать отметку репликации: {}", e.getMessage());
+        }
+        checkReplicas();
+    }
+
+    public void writeHeartbeat() {
+        new JdbcTemplate(primary).update(WRITE_HEARTBEAT, Timestamp.from(clock.instant()));
+    }
+
+    public void checkReplicas() {
+        Instant now = clock.instant();
+        List<Integer> fresh = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Duration lag = lag(i, now);
+            if (lag != null && lag.compareTo(maxStaleness) <= 0) {
+                fresh.add(i);
+            } else if (freshReplicas.contains(i)) {
+                log.warn("Реплика {} отстаёт на {} (допустимо {}), чтение переведено на другие базы", i + 1,
+                        lag == null ? "неизвестное время" : lag, maxStaleness);
+            }
+        }
+        freshReplicas = List.copyOf(fresh);
+    }
+
+    public List<Integer> getFreshReplicas() {
+        return freshReplicas;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < replicas.size(); i++) {
+            if (replicas.get(i) instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    log.warn("Не удалось закрыть пул реплики {}: {}", i + 1, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        List<Integer> fresh = freshReplicas;
+        if (fresh.isEmpty()) {
+            return PRIMARY;
+        }
+        return fresh.get(Math.floorMod(next.getAndIncrement(), fresh.size()));
+    }
+
+    // null, если реплика недоступна или отметки на ней ещё нет
+    private Duration lag(int replica, Instant now) {
+        try {
+            List<Timestamp> beats = new JdbcTemplate(replicas.get(replica)).queryForList(READ_HEARTBEAT, Timestamp.class);
+            return beats.isEmpty() ? null : Duration.between(beats.getFirst().toInstant(), now);
+        } catch (DataAccessException e) {
+            log.warn("Реплика {} недоступна: {}", replica + 1, e.getMessage());
+            return null;
+        }
+    }
+}
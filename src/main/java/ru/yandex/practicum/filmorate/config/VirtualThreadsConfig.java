@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// Режим виртуальных потоков (spring.threads.virtual.enabled=true): Spring Boot сам переводит на них Tomcat
+// и applicationTaskExecutor (асинхронные ответы MVC, StreamingResponseBody). Здесь — только размер пула соединений.
+// Драйвер H2 выполняет запросы внутри synchronized, поэтому виртуальный поток в JDBC-вызове закрепляет
+// несущий поток до конца запроса. Пул на одно соединение меньше числа несущих потоков (но не меньше одного):
+// лишние запросы ждут соединение в HikariCP, не закрепляя носитель, и при двух и более несущих потоках
+// хотя бы один из них всегда свободен для запросов без базы. При одном несущем потоке гарантии нет
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    private static final String MAX_POOL_SIZE = "filmorate.datasource.virtual-threads.max-pool-size";
+    private static final String HIKARI_MAX_POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+    @Bean
+    public static BeanPostProcessor virtualThreadsPoolSizing(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource && !environment.containsProperty(HIKARI_MAX_POOL_SIZE)) {
+                    int poolSize = environment.getProperty(MAX_POOL_SIZE, Integer.class,
+                            Math.max(1, carrierParallelism() - 1));
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setMinimumIdle(poolSize);
+                    log.info("Виртуальные потоки включены, размер пула соединений {}: {}", beanName, poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Число несущих потоков планировщика виртуальных потоков (по умолчанию — число ядер)
+    static int carrierParallelism() {
+        String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        return parallelism != null ? Integer.parseInt(parallelism) : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dto.CacheStatsDto;
+import ru.yandex.practicum.filmorate.repository.film.CachingFilmRepository;
+
+@RestController
+@RequestMapping("/cache")
+@Slf4j
+@RequiredArgsConstructor
+public class CacheController {
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    private final CachingFilmRepository filmRepository;
+    private final SerializedResponseCache responseCache;
+
+    @GetMapping("/films")
+    @ResponseStatus(HttpStatus.OK)
+    public CacheStatsDto getFilmCacheStats() {
+        log.info("Получен запрос на получение статистики кэша фильмов");
+        return toDto(filmRepository.getEstimatedSize(), filmRepository.getStats());
+    }
+
+    @GetMapping("/responses")
+    @ResponseStatus(HttpStatus.OK)
+    public CacheStatsDto getResponseCacheStats() {
+        log.info("Получен запрос на получение статистики кэша ответов");
+        return toDto(responseCache.getEstimatedSize(), responseCache.getStats());
+    }
+
+    private static CacheStatsDto toDto(long size, CacheStats stats) {
+        return CacheStatsDto.builder()
+                .size(size)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .loadCount(stats.loadCount())
+                .averageLoadPenaltyMillis(stats.averageLoadPenalty() / NANOS_IN_MILLI)
+                .build();
+    }
+}
@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,10 +18,24 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResultDto;
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.service.film.FilmImportService;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.service.validation.ValidationService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -26,7 +44,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FilmController {
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
     private final ValidationService validationService;
+    private final ObjectMapper objectMapper;
+    private final EntityVersions versions;
+    private final SerializedResponseCache responseCache;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -55,11 +77,92 @@ public class FilmController {
         return filmService.getAllFilms();
     }
 
-    @GetMapping("/{filmId}")
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDto<FilmDto> getFilmsPage(@RequestParam(required = false) Long after,
+                                         @RequestParam Integer limit) {
+        log.info("Получен запрос на получение страницы фильмов после id={} размером {}", after, limit);
+        return filmService.getFilmsPage(after, limit);
+    }
+
+    // ids и limit вместе: без этого отображения запрос подходит под оба соседних, и Spring отвечает 500
+    @GetMapping(params = {"ids", "limit"})
+    public void rejectIdsWithLimit() {
+        throw new ConditionsNotMetException("Параметры ids и limit нельзя указывать вместе");
+    }
+
+    // Несколько фильмов за один запрос: GET /films?ids=1,2,3
+    @GetMapping(params = "ids")
     @ResponseStatus(HttpStatus.OK)
-    public FilmDto getFilmById(@PathVariable Long filmId) {
+    public MultiGetDto<FilmDto> getFilmsByIds(@RequestParam List<Long> ids) {
+        log.info("Получен запрос на получение фильмов с id={}", ids);
+        return filmService.getFilmsByIds(ids);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Получен запрос на выгрузку каталога фильмов");
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            int exported = filmService.exportFilms(film -> {
+                try {
+                    objectMapper.writeValue(generator, film);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.close();
+            log.info("Выгрузка каталога завершена, фильмов: {}", exported);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Тело читается потоком, поэтому размер файла ограничен только таймаутом запроса
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public FilmImportResultDto importFilmsJson(InputStream body) {
+        log.info("Получен запрос на импорт фильмов из JSON");
+        return filmImportService.importJson(body);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @ResponseStatus(HttpStatus.OK)
+    public FilmImportResultDto importFilmsCsv(InputStream body) {
+        log.info("Получен запрос на импорт фильмов из CSV");
+        return filmImportService.importCsv(body);
+    }
+
+    // Последнее слово запроса - префикс, поэтому запрос подходит и для автодополнения
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmDto> searchFilms(@RequestParam(required = false) String q,
+                                     @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        log.info("Получен запрос на поиск фильмов по строке '{}'", q);
+        return filmService.searchFilms(q, limit);
+    }
+
+    // Без @ResponseStatus: он перезаписал бы статус 304, выставленный checkNotModified
+    @GetMapping("/{filmId}")
+    public FilmDto getFilmById(@PathVariable Long filmId, WebRequest request) {
         log.info("Получен запрос на получение фильма с id={}", filmId);
-        return filmService.getFilmById(filmId);
+        String eTag = versions.filmETag(filmId);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+        FilmDto film = filmService.getFilmById(filmId);
+        if (eTag == null) {
+            // Версия появляется только у найденного фильма; checkNotModified с новой версией лишь ставит ETag
+            String assigned = versions.filmRead(filmId);
+            if (assigned != null) {
+                request.checkNotModified(assigned);
+            }
+        }
+        return film;
     }
 
     @PutMapping("/{filmId}/like/{userId}")
@@ -80,10 +183,23 @@ public class FilmController {
         log.info("Удаление лайка завершено");
     }
 
-    @GetMapping("/popular")
+    @PostMapping("/likes/batch")
     @ResponseStatus(HttpStatus.OK)
-    public List<FilmDto> getTheMostPopularFilms(@RequestParam(required = false, defaultValue = "10") Integer count) {
-        log.info("Получен запрос на получение {} самых популярных фильмов", count);
-        return filmService.getTheMostPopularFilms(count);
+    public List<LikeOperationResultDto> applyLikes(@RequestBody List<LikeOperation> operations) {
+        log.info("Получен пакет из {} операций с лайками", operations.size());
+        List<LikeOperationResultDto> results = filmService.applyLikes(operations);
+        log.info("Пакетная обработка лайков завершена");
+        return results;
+    }
+
+    @GetMapping("/popular")
+    public ResponseEntity<byte[]> getTheMostPopularFilms(
+            @RequestParam(required = false, defaultValue = "10") Integer count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year, WebRequest request) {
+        log.info("Получен запрос на получение {} самых популярных фильмов, жанр {}, год {}", count, genreId, year);
+        return responseCache.respond(request,
+                "films/popular?count=" + count + "&genreId=" + genreId + "&year=" + year,
+                versions.popularFilmsETag(), () -> filmService.getTheMostPopularFilms(count, genreId, year));
     }
 }
\ No newline at end of file
@@ -3,28 +3,30 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
 import ru.yandex.practicum.filmorate.repository.genre.GenreRepositoryInterface;
 import ru.yandex.practicum.filmorate.model.Genre;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/genres")
 @Slf4j
 @RequiredArgsConstructor
 public class GenreController {
     private final GenreRepositoryInterface genreRepository;
+    private final EntityVersions versions;
+    private final SerializedResponseCache responseCache;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<Genre> getAllGenres() {
+    public ResponseEntity<byte[]> getAllGenres(WebRequest request) {
         log.info("Получен запрос на получение списка всех жанров");
-        return genreRepository.getAllGenres();
+        return responseCache.respond(request, "genres", versions.referenceDataETag(), genreRepository::getAllGenres);
     }
 
     @GetMapping("/{id}")
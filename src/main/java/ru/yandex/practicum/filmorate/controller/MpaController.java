@@ -3,29 +3,30 @@ package ru.yandex.practicum.filmorate.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
 import ru.yandex.practicum.filmorate.repository.mpa.MpaRepositoryInterface;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
-
-import java.util.List;
-
 @RestController
 @RequestMapping("/mpa")
 @RequiredArgsConstructor
 @Slf4j
 public class MpaController {
     private final MpaRepositoryInterface mpaRepository;
+    private final EntityVersions versions;
+    private final SerializedResponseCache responseCache;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<Mpa> getAllRatings() {
+    public ResponseEntity<byte[]> getAllRatings(WebRequest request) {
         log.info("Получен запрос на получение списка всех рейтингов");
-        return mpaRepository.getAll();
+        return responseCache.respond(request, "mpa", versions.referenceDataETag(), mpaRepository::getAll);
     }
 
     @GetMapping("/{id}")
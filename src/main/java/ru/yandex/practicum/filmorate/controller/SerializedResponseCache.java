@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Готовые тела ответов для горячих GET-запросов: JSON и его gzip-вариант строятся один раз на версию данных
+// и дальше отдаются массивом байт без запросов к репозиториям и сериализации.
+// Запись в данные сдвигает версию (EntityVersions), и устаревшая запись пересобирается при следующем чтении
+@Component
+public class SerializedResponseCache {
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+    private final Cache<String, SerializedBody> bodies;
+
+    public SerializedResponseCache(ObjectMapper objectMapper,
+                                   @Value("${filmorate.cache.responses.maximum-size:1000}") long maximumSize,
+                                   @Value("${filmorate.cache.responses.gzip:true}") boolean gzipEnabled) {
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+        this.bodies = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    // version — ETag данных; у gzip-варианта свой ETag, так как его байты отличаются
+    public ResponseEntity<byte[]> respond(WebRequest request, String key, String version, Supplier<?> body) {
+        boolean gzip = gzipEnabled && acceptsGzip(request);
+        if (request.checkNotModified(gzip ? version + "-" + GZIP : version)) {
+            return null;
+        }
+        SerializedBody cached = bodies.getIfPresent(key);
+        if (cached == null || !cached.version().equals(version)) {
+            cached = serialize(version, body.get());
+            bodies.put(key, cached);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.gzipped());
+        }
+        return response.body(cached.json());
+    }
+
+    public CacheStats getStats() {
+        return bodies.stats();
+    }
+
+    public long getEstimatedSize() {
+        return bodies.estimatedSize();
+    }
+
+    private SerializedBody serialize(String version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new SerializedBody(version, json, gzipEnabled ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Не удалось сериализовать ответ");
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Accept-Encoding по RFC 9110: список кодировок с весами q; q=0 запрещает кодировку, x-gzip - другое имя gzip,
+    // * относится ко всем кодировкам, не названным явно
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = weight(parts);
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                gzipWeight = gzipWeight == null ? weight : Math.max(gzipWeight, weight);
+            } else if (name.equals("*")) {
+                anyWeight = weight;
+            }
+        }
+        Double weight = gzipWeight != null ? gzipWeight : anyWeight;
+        return weight != null && weight > 0;
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private record SerializedBody(String version, byte[] json, byte[] gzipped) {
+    }
+}
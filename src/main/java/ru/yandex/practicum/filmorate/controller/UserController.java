@@ -10,10 +10,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 import ru.yandex.practicum.filmorate.service.validation.ValidationService;
 
@@ -26,6 +34,8 @@ import java.util.List;
 public class UserController {
     private final ValidationService validationService;
     private final UserService userService;
+    private final FilmService filmService;
+    private final EntityVersions versions;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -54,6 +64,28 @@ public class UserController {
         return userService.getAllUsers();
     }
 
+    @GetMapping(params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDto<UserDto> getUsersPage(@RequestParam(required = false) Long after,
+                                         @RequestParam Integer limit) {
+        log.info("Получен запрос на получение страницы пользователей после id={} размером {}", after, limit);
+        return userService.getUsersPage(after, limit);
+    }
+
+    // ids и limit вместе: без этого отображения запрос подходит под оба соседних, и Spring отвечает 500
+    @GetMapping(params = {"ids", "limit"})
+    public void rejectIdsWithLimit() {
+        throw new ConditionsNotMetException("Параметры ids и limit нельзя указывать вместе");
+    }
+
+    // Несколько пользователей за один запрос: GET /users?ids=1,2,3
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetDto<UserDto> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("Получен запрос на получение пользователей с id={}", ids);
+        return userService.getUsersByIds(ids);
+    }
+
     @PutMapping("/{userId}/friends/{friendId}")
     @ResponseStatus(HttpStatus.OK)
     public void addFriend(@PathVariable Long userId,
@@ -72,11 +104,40 @@ public class UserController {
         log.info("Пользователи с id={} и id={} больше не друзья", userId, friendId);
     }
 
+    // Без @ResponseStatus: он перезаписал бы статус 304, выставленный checkNotModified
     @GetMapping("/{userId}/friends")
-    @ResponseStatus(HttpStatus.OK)
-    public List<UserDto> getFriendsList(@PathVariable Long userId) {
+    public List<UserDto> getFriendsList(@PathVariable Long userId, WebRequest request) {
         log.info("Получен запрос на получение списка друзей у пользователя с id={}", userId);
-        return userService.getFriendsList(userId);
+        String eTag = versions.friendsETag(userId);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
+        long usersVersion = versions.usersVersion();
+        List<UserDto> friends = userService.getFriendsList(userId);
+        if (eTag == null) {
+            // Версия появляется только у найденного пользователя; checkNotModified с новой версией лишь ставит ETag
+            String assigned = versions.friendsRead(userId, usersVersion);
+            if (assigned != null) {
+                request.checkNotModified(assigned);
+            }
+        }
+        return friends;
+    }
+
+    @GetMapping("/{userId}/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public List<UserDto> getFriendSuggestions(@PathVariable Long userId,
+                                              @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        log.info("Получен запрос на получение {} рекомендаций друзей для пользователя с id={}", limit, userId);
+        return userService.getFriendSuggestions(userId, limit);
+    }
+
+    @GetMapping("/{userId}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public List<FilmDto> getRecommendations(@PathVariable Long userId,
+                                            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        log.info("Получен запрос на получение {} рекомендаций фильмов для пользователя с id={}", limit, userId);
+        return filmService.getRecommendations(userId, limit);
     }
 
     @GetMapping("/{id}/friends/common/{friendId}")
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// record - номер записи в файле, начиная с 1
+@Data
+@AllArgsConstructor
+public class FilmImportErrorDto {
+    private int record;
+    private String message;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FilmImportResultDto {
+    private int imported;
+    private int rejected;
+    private List<FilmImportErrorDto> errors;
+}
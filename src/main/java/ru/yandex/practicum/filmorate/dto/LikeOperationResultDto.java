@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
+
+@Data
+@AllArgsConstructor
+public class LikeOperationResultDto {
+    private Long userId;
+    private Long filmId;
+    private LikeOperation.Type op;
+    private LikeOperationStatus status;
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Ответ на запрос по списку id: найденные объекты в порядке запроса и id, которых нет
+@Data
+@AllArgsConstructor
+public class MultiGetDto<T> {
+    private List<T> items;
+    private List<Long> missingIds;
+}
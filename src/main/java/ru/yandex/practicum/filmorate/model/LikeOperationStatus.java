@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum LikeOperationStatus {
+    APPLIED,
+    ALREADY_LIKED,
+    NOT_LIKED,
+    USER_NOT_FOUND,
+    FILM_NOT_FOUND,
+    INVALID
+}
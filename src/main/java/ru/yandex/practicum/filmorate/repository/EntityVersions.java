@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии для ETag: каждое изменение получает следующий номер общего счётчика, поэтому версия только растёт
+// и не повторяется. Эпоха запуска в ETag отличает версии от выданных до перезапуска.
+// Версия сдвигается сразу и ещё раз после коммита или отката: ответ, прочитанный до завершения транзакции,
+// не получит итоговый ETag, а откат не оставит в кэше ответ с промежуточным состоянием.
+// Фильм и список друзей получают версию при изменении или при первом успешном чтении; без версии ETag нет,
+// поэтому запрос несуществующего id не получит 304 вместо 404
+@Component
+public class EntityVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> filmVersions = new ConcurrentHashMap<>();
+    private final Map<Long, Long> friendListVersions = new ConcurrentHashMap<>();
+    private final AtomicLong popularFilmsVersion = new AtomicLong();
+    private final AtomicLong usersVersion = new AtomicLong();
+
+    // null - версии ещё нет
+    public String filmETag(long filmId) {
+        Long version = filmVersions.get(filmId);
+        return version == null ? null : epoch + "-" + version;
+    }
+
+    // Версия фильма, прочитанного без версии. null - фильм изменился во время чтения, и прочитанное могло устареть
+    public String filmRead(long filmId) {
+        long version = clock.incrementAndGet();
+        return filmVersions.putIfAbsent(filmId, version) == null ? epoch + "-" + version : null;
+    }
+
+    // Справочники жанров и рейтингов не меняются до перезапуска
+    public String referenceDataETag() {
+        return epoch;
+    }
+
+    public String popularFilmsETag() {
+        return epoch + "-" + popularFilmsVersion.get();
+    }
+
+    // Список друзей содержит профили друзей, поэтому зависит и от изменений любых пользователей; null - версии нет
+    public String friendsETag(long userId) {
+        Long version = friendListVersions.get(userId);
+        return version == null ? null : epoch + "-" + usersVersion.get() + "-" + version;
+    }
+
+    // Версия списка друзей, прочитанного без версии; usersVersion берётся до чтения. null - список изменился
+    public String friendsRead(long userId, long usersVersionBeforeRead) {
+        long version = clock.incrementAndGet();
+        return friendListVersions.putIfAbsent(userId, version) == null
+                ? epoch + "-" + usersVersionBeforeRead + "-" + version : null;
+    }
+
+    public long usersVersion() {
+        return usersVersion.get();
+    }
+
+    // Фильм входит в топ популярных, поэтому его изменение сдвигает и версию топа
+    public void filmChanged(long filmId) {
+        changed(() -> {
+            long version = clock.incrementAndGet();
+            filmVersions.merge(filmId, version, Math::max);
+            popularFilmsVersion.accumulateAndGet(version, Math::max);
+        });
+    }
+
+    // Пакет фильмов получает одну общую версию
+    public void filmsChanged(Collection<Long> filmIds) {
+        changed(() -> {
+            long version = clock.incrementAndGet();
+            filmIds.forEach(filmId -> filmVersions.merge(filmId, version, Math::max));
+            popularFilmsVersion.accumulateAndGet(version, Math::max);
+        });
+    }
+
+    public void likesChanged() {
+        changed(() -> popularFilmsVersion.accumulateAndGet(clock.incrementAndGet(), Math::max));
+    }
+
+    public void friendsChanged(long userId) {
+        changed(() -> friendListVersions.merge(userId, clock.incrementAndGet(), Math::max));
+    }
+
+    public void userChanged() {
+        changed(() -> usersVersion.accumulateAndGet(clock.incrementAndGet(), Math::max));
+    }
+
+    private static void changed(Runnable bump) {
+        bump.run();
+        TransactionHooks.afterCommit(bump);
+        TransactionHooks.afterRollback(bump);
+    }
+}
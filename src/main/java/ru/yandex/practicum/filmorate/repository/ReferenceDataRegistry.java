@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// Жанры и рейтинги MPA — справочники из data.sql, которые приложение не меняет. Читаются один раз при старте;
+// дальше проверка id — обращение к массиву, а маппинг фильмов переиспользует одни и те же неизменяемые экземпляры
+@Component
+public class ReferenceDataRegistry {
+    private static final String GET_ALL_GENRES = "SELECT genre_id, name FROM genres";
+    private static final String GET_ALL_MPA = "SELECT mpa_id, name FROM mpa";
+
+    private final List<Genre> genres;
+    private final Genre[] genresById;
+    private final List<Mpa> mpaRatings;
+    private final Mpa[] mpaById;
+
+    @Autowired
+    public ReferenceDataRegistry(NamedParameterJdbcOperations jdbc) {
+        this(jdbc.getJdbcOperations().query(GET_ALL_GENRES, new GenreRowMapper()),
+                jdbc.getJdbcOperations().query(GET_ALL_MPA, new MpaRowMapper()));
+    }
+
+    public ReferenceDataRegistry(List<Genre> genres, List<Mpa> mpaRatings) {
+        this.genres = genres.stream().sorted(Comparator.comparing(Genre::getId)).toList();
+        this.mpaRatings = mpaRatings.stream().sorted(Comparator.comparingInt(Mpa::getId)).toList();
+        this.genresById = new Genre[this.genres.isEmpty() ? 0 : this.genres.getLast().getId() + 1];
+        this.genres.forEach(genre -> genresById[genre.getId()] = genre);
+        this.mpaById = new Mpa[this.mpaRatings.isEmpty() ? 0 : this.mpaRatings.getLast().getId() + 1];
+        this.mpaRatings.forEach(mpa -> mpaById[mpa.getId()] = mpa);
+    }
+
+    public List<Genre> getGenres() {
+        return genres;
+    }
+
+    public List<Mpa> getMpaRatings() {
+        return mpaRatings;
+    }
+
+    // Канонический экземпляр жанра или null, если такого id нет
+    public Genre genre(int id) {
+        return id >= 0 && id < genresById.length ? genresById[id] : null;
+    }
+
+    // Канонический экземпляр рейтинга или null, если такого id нет
+    public Mpa mpa(int id) {
+        return id >= 0 && id < mpaById.length ? mpaById[id] : null;
+    }
+
+    public Optional<Genre> findGenre(int id) {
+        return Optional.ofNullable(genre(id));
+    }
+
+    public Optional<Mpa> findMpa(int id) {
+        return Optional.ofNullable(mpa(id));
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Операции над отсортированными long[] без изменения исходного массива: in-memory индексы заменяют массив копией,
+// чтобы читатели без блокировок видели целостный снимок
+public final class SortedLongArrays {
+    public static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    public static long[] sortedCopy(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public static boolean contains(long[] sorted, long value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    // Возвращает тот же массив, если значение уже есть
+    public static long[] insert(long[] sorted, long value) {
+        int position = Arrays.binarySearch(sorted, value);
+        if (position >= 0) {
+            return sorted;
+        }
+        int insertAt = -position - 1;
+        long[] updated = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(sorted, insertAt, updated, insertAt + 1, sorted.length - insertAt);
+        return updated;
+    }
+
+    // Возвращает тот же массив, если значения нет, и null, если массив стал пустым - для удаления ключа из Map
+    public static long[] remove(long[] sorted, long value) {
+        int position = Arrays.binarySearch(sorted, value);
+        if (position < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return null;
+        }
+        long[] updated = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, updated, 0, position);
+        System.arraycopy(sorted, position + 1, updated, position, updated.length - position);
+        return updated;
+    }
+
+    public static long[] intersect(long[] first, long[] second) {
+        long[] common = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    // Значения first, которых нет в second
+    public static long[] difference(long[] first, long[] second) {
+        long[] rest = new long[first.length];
+        int size = 0;
+        int j = 0;
+        for (long value : first) {
+            while (j < second.length && second[j] < value) {
+                j++;
+            }
+            if (j == second.length || second[j] != value) {
+                rest[size++] = value;
+            }
+        }
+        return Arrays.copyOf(rest, size);
+    }
+
+    // Объединение без повторов; списки сливаются попарно, как в сортировке слиянием
+    public static long[] union(List<long[]> arrays) {
+        if (arrays.isEmpty()) {
+            return EMPTY;
+        }
+        return union(arrays, 0, arrays.size());
+    }
+
+    private static long[] union(List<long[]> arrays, int from, int to) {
+        if (to - from == 1) {
+            return arrays.get(from);
+        }
+        int middle = (from + to) >>> 1;
+        return union(union(arrays, from, middle), union(arrays, middle, to));
+    }
+
+    public static long[] union(long[] first, long[] second) {
+        // Новые id больше всех прежних: обычный случай для только что созданных фильмов, слияние не нужно
+        if (first.length == 0 || second.length == 0 || first[first.length - 1] < second[0]) {
+            long[] appended = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, appended, first.length, second.length);
+            return appended;
+        }
+        long[] merged = new long[first.length + second.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                merged[size++] = first[i++];
+            } else if (first[i] > second[j]) {
+                merged[size++] = second[j++];
+            } else {
+                merged[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < first.length) {
+            merged[size++] = first[i++];
+        }
+        while (j < second.length) {
+            merged[size++] = second[j++];
+        }
+        return Arrays.copyOf(merged, size);
+    }
+}
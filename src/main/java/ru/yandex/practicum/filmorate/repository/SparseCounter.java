@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+
+// Счётчик по примитивным long-ключам с открытой адресацией (id -> сумма), без упаковки в Long.
+// Используется in-memory индексами для подсчёта пересечений: общих друзей, общих лайков.
+public final class SparseCounter {
+    private static final long EMPTY = 0L;
+    // Больше этого заранее не резервируется: различных ключей обычно намного меньше, чем прибавлений
+    private static final int MAX_INITIAL_CAPACITY = 1 << 17;
+    private static final Comparator<Entry> BY_COUNT = Comparator.comparingLong(Entry::count)
+            .thenComparing(Entry::key, Comparator.reverseOrder());
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    public SparseCounter(int expectedIncrements) {
+        int capacity = Integer.highestOneBit(Math.clamp(expectedIncrements, 32, MAX_INITIAL_CAPACITY / 2) * 2 - 1) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    // Сколько раз каждый ключ встречается в списках соседей ids; большой обход делится между потоками ForkJoinPool
+    public static SparseCounter countNeighbours(long[] ids, LongFunction<long[]> neighbours, int parallelThreshold) {
+        int chunks = ids.length >= parallelThreshold ? ForkJoinPool.getCommonPoolParallelism() : 1;
+        int chunkSize = (ids.length + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> countNeighbours(ids, chunk * chunkSize,
+                        Math.min(ids.length, (chunk + 1) * chunkSize), neighbours))
+                .reduce(SparseCounter::merge)
+                .orElseGet(() -> new SparseCounter(0));
+    }
+
+    private static SparseCounter countNeighbours(long[] ids, int from, int to, LongFunction<long[]> neighbours) {
+        long[][] lists = new long[Math.max(to - from, 0)][];
+        int expansion = 0;
+        for (int i = from; i < to; i++) {
+            lists[i - from] = neighbours.apply(ids[i]);
+            expansion += lists[i - from].length;
+        }
+        SparseCounter counter = new SparseCounter(expansion);
+        for (long[] list : lists) {
+            for (long key : list) {
+                counter.increment(key);
+            }
+        }
+        return counter;
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, long count) {
+        int slot = slot(key, keys.length - 1);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                counts[slot] = count;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += count;
+    }
+
+    public SparseCounter merge(SparseCounter other) {
+        other.forEach(this::add);
+        return this;
+    }
+
+    public void forEach(CountConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                action.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    // Лучшие limit ключей по убыванию суммы, при равенстве - по возрастанию ключа; куча не растёт больше limit
+    public List<Entry> top(int limit, LongPredicate excluded) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, BY_COUNT);
+        forEach((key, count) -> {
+            if (excluded.test(key)) {
+                return;
+            }
+            if (top.size() < limit) {
+                top.add(new Entry(key, count));
+            } else if (count > top.peek().count() || count == top.peek().count() && key < top.peek().key()) {
+                top.poll();
+                top.add(new Entry(key, count));
+            }
+        });
+        List<Entry> ranked = new ArrayList<>(top);
+        ranked.sort(BY_COUNT.reversed());
+        return ranked;
+    }
+
+    @FunctionalInterface
+    public interface CountConsumer {
+        void accept(long key, long count);
+    }
+
+    public record Entry(long key, long count) {
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldCounts.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], keys.length - 1);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public final class TransactionHooks {
+    private static final Object UNDO_LOG_KEY = new Object();
+
+    private TransactionHooks() {
+    }
+
+    // Выполняет действие после коммита текущей транзакции или сразу, если транзакции нет
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // In-memory индексы обновляются сразу, а при откате транзакции изменения отменяются в обратном порядке
+    public static void onRollback(Runnable compensation) {
+        UndoLog undoLog = undoLog();
+        if (undoLog != null) {
+            undoLog.compensations.push(compensation);
+        }
+    }
+
+    // Выполняет действие при откате текущей транзакции после всех отмен onRollback, в каком бы порядке
+    // они ни регистрировались; без транзакции не делает ничего
+    public static void afterRollback(Runnable action) {
+        UndoLog undoLog = undoLog();
+        if (undoLog != null) {
+            undoLog.afterRollback.add(action);
+        }
+    }
+
+    private static UndoLog undoLog() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(UNDO_LOG_KEY);
+        if (undoLog == null) {
+            UndoLog newUndoLog = new UndoLog();
+            TransactionSynchronizationManager.bindResource(UNDO_LOG_KEY, newUndoLog);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(UNDO_LOG_KEY);
+                    if (status == STATUS_ROLLED_BACK) {
+                        newUndoLog.compensations.forEach(Runnable::run);
+                        newUndoLog.afterRollback.forEach(Runnable::run);
+                    }
+                }
+            });
+            undoLog = newUndoLog;
+        }
+        return undoLog;
+    }
+
+    private static final class UndoLog {
+        private final Deque<Runnable> compensations = new ArrayDeque<>();
+        private final List<Runnable> afterRollback = new ArrayList<>();
+    }
+}
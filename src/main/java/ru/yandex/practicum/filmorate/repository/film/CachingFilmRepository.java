@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import io.micrometer.core.annotation.Timed;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
+import ru.yandex.practicum.filmorate.repository.TransactionHooks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Read-through кэш фильмов по id поверх FilmRepository; сбрасывается при сохранении и обновлении фильма
+@Primary
+@Repository
+@Timed(value = MetricsConfig.REPOSITORY_TIMER, histogram = true)
+public class CachingFilmRepository implements FilmRepositoryInterface {
+    private final FilmRepository delegate;
+    private final Cache<Long, Film> filmsById;
+
+    public CachingFilmRepository(FilmRepository delegate,
+                                 @Value("${filmorate.cache.films.maximum-size:10000}") long maximumSize,
+                                 @Value("${filmorate.cache.films.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.filmsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Film saveFilm(Film film) {
+        Film savedFilm = delegate.saveFilm(film);
+        invalidate(savedFilm.getId());
+        return savedFilm;
+    }
+
+    @Override
+    public List<Film> saveFilms(List<Film> films) {
+        List<Film> savedFilms = delegate.saveFilms(films);
+        savedFilms.forEach(film -> invalidate(film.getId()));
+        return savedFilms;
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        invalidate(film.getId());
+        Film updatedFilm = delegate.updateFilm(film);
+        invalidate(film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return delegate.getAllFilms();
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long after, int limit) {
+        return delegate.getFilmsPage(after, limit);
+    }
+
+    @Override
+    public int exportFilms(Consumer<Film> consumer) {
+        return delegate.exportFilms(consumer);
+    }
+
+    @Override
+    public Optional<Film> getFilmById(Long id) {
+        return Optional.ofNullable(filmsById.get(id, key -> delegate.getFilmById(key).orElse(null)));
+    }
+
+    // Из базы одним запросом читаются только фильмы, которых нет в кэше
+    @Override
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        Map<Long, Film> films = filmsById.getAll(ids, missingIds -> delegate.getFilmsByIds(List.copyOf(missingIds))
+                .stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity())));
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void addLike(Long userId, Long filmId) {
+        delegate.addLike(userId, filmId);
+    }
+
+    @Override
+    public void removeLike(Long userId, Long filmId) {
+        delegate.removeLike(userId, filmId);
+    }
+
+    @Override
+    public List<LikeOperationStatus> applyLikes(List<LikeOperation> operations) {
+        return delegate.applyLikes(operations);
+    }
+
+    @Override
+    public List<Film> getTheMostPopularFilms(Integer count, Integer genreId, Integer year) {
+        return delegate.getTheMostPopularFilms(count, genreId, year);
+    }
+
+    @Override
+    public List<Film> getRecommendations(Long userId, int limit) {
+        return delegate.getRecommendations(userId, limit);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return delegate.searchFilms(query, limit);
+    }
+
+    @Override
+    public List<Long> getLikes(Long filmId) {
+        return delegate.getLikes(filmId);
+    }
+
+    @Override
+    public List<Long> findLikesCountDrift() {
+        return delegate.findLikesCountDrift();
+    }
+
+    @Override
+    public int repairLikesCount() {
+        return delegate.repairLikesCount();
+    }
+
+    public CacheStats getStats() {
+        return filmsById.stats();
+    }
+
+    public long getEstimatedSize() {
+        return filmsById.estimatedSize();
+    }
+
+    // Повторный сброс после завершения транзакции не даёт закэшировать незакоммиченное состояние
+    private void invalidate(Long filmId) {
+        filmsById.invalidate(filmId);
+        TransactionHooks.afterCommit(() -> filmsById.invalidate(filmId));
+        TransactionHooks.onRollback(() -> filmsById.invalidate(filmId));
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+// Открытая адресация по примитивным long-ключам: id фильма -> позиция в списке, без упаковки в Long
+final class FilmIdIndex {
+    private static final long EMPTY = 0L;
+
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+
+    FilmIdIndex(List<Film> films) {
+        int capacity = Integer.highestOneBit(Math.max(films.size(), 1) * 2 - 1) << 1;
+        keys = new long[capacity];
+        positions = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < films.size(); i++) {
+            put(films.get(i).getId(), i);
+        }
+    }
+
+    int indexOf(long filmId) {
+        int slot = slot(filmId);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == filmId) {
+                return positions[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void put(long filmId, int position) {
+        int slot = slot(filmId);
+        while (keys[slot] != EMPTY && keys[slot] != filmId) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = filmId;
+        positions[slot] = position;
+    }
+
+    private int slot(long filmId) {
+        long hash = filmId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -1,10 +1,14 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
@@ -12,23 +16,39 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
-
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.TransactionHooks;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
+@Timed(value = MetricsConfig.REPOSITORY_TIMER, histogram = true)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class FilmRepository implements FilmRepositoryInterface {
     private static final String INSERT_FILM = """
@@ -47,15 +67,39 @@ public class FilmRepository implements FilmRepositoryInterface {
             """;
 
     private static final String GET_ALL_FILMS = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM films f
+            ORDER BY f.film_id
+            """;
+
+    private static final String EXPORT_ALL_FILMS = """
             SELECT
                 f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id,
-                g.genre_id, g.name as genre_name,
-                m.mpa_id as mpa_id, m.name as mpa_name
+                fg.genre_id
             FROM films f
             LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-            LEFT JOIN genres g ON fg.genre_id = g.genre_id
-            LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-            ORDER BY f.film_id, g.genre_id
+            ORDER BY f.film_id, fg.genre_id
+            """;
+
+    private static final String GET_FILMS_PAGE = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM films f
+            WHERE f.film_id > :after
+            ORDER BY f.film_id
+            LIMIT :limit
+            """;
+
+    private static final String GET_ALL_FILM_GENRES = """
+            SELECT film_id, genre_id
+            FROM film_genres
+            ORDER BY film_id, genre_id
+            """;
+
+    private static final String GET_GENRES_BY_FILM_IDS = """
+            SELECT film_id, genre_id
+            FROM film_genres
+            WHERE film_id IN (:ids)
+            ORDER BY film_id, genre_id
             """;
 
     private static final String GET_FILM_BY_ID;
@@ -67,30 +111,68 @@ public class FilmRepository implements FilmRepositoryInterface {
             DELETE FROM likes
             WHERE user_id = :userId AND film_id = :filmId
             """;
+    private static final String GET_FILMS_BY_IDS = """
+            SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id
+            FROM films f
+            WHERE f.film_id IN (:ids)
+            """;
     private static final String GET_POPULAR_FILMS = """
-            SELECT
-                 f.film_id,
-                 f.name,
-                 f.description,
-                 f.release_date,
-                 f.duration,
-                 f.mpa_id,
-                 g.genre_id,
-                 g.name as genre_name,
-                 m.mpa_id as mpa_id,
-                 m.name as mpa_name,
-                 l.likes_count
-             FROM films f
-             LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-             LEFT JOIN genres g ON fg.genre_id = g.genre_id
-             LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-             LEFT JOIN (
-                 SELECT film_id, COUNT(user_id) as likes_count
-                 FROM likes
-                 GROUP BY film_id
-             ) l ON f.film_id = l.film_id
-             ORDER BY l.likes_count DESC, f.film_id ASC
-             LIMIT :limit
+            SELECT film_id, likes_count, release_date
+            FROM films
+            ORDER BY likes_count DESC, film_id
+            """;
+    private static final String GET_SEARCHABLE_TEXT = """
+            SELECT film_id, name, description
+            FROM films
+            """;
+    private static final String GET_ALL_LIKES = """
+            SELECT user_id, film_id
+            FROM likes
+            """;
+    private static final String MERGE_LIKE = """
+            MERGE INTO likes l
+            USING (VALUES (CAST(:filmId AS BIGINT), CAST(:userId AS BIGINT))) AS s (film_id, user_id)
+            ON l.film_id = s.film_id AND l.user_id = s.user_id
+            WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)
+            """;
+    private static final String CHANGE_LIKES_COUNT = """
+            UPDATE films SET likes_count = likes_count + :delta
+            WHERE film_id = :filmId
+            """;
+    private static final String GET_EXISTING_FILM_IDS = """
+            SELECT film_id
+            FROM films
+            WHERE film_id IN (:ids)
+            """;
+    private static final String GET_EXISTING_USER_IDS = """
+            SELECT user_id
+            FROM users
+            WHERE user_id IN (:ids)
+            """;
+    private static final String INCREMENT_LIKES_COUNT = """
+            UPDATE films SET likes_count = likes_count + 1
+            WHERE film_id = :filmId
+            """;
+    private static final String DECREMENT_LIKES_COUNT = """
+            UPDATE films SET likes_count = likes_count - 1
+            WHERE film_id = :filmId
+            """;
+    private static final String FIND_LIKES_COUNT_DRIFT = """
+            SELECT f.film_id
+            FROM films f
+            LEFT JOIN (
+                SELECT film_id, COUNT(user_id) AS actual_count
+                FROM likes
+                GROUP BY film_id
+            ) l ON f.film_id = l.film_id
+            WHERE f.likes_count <> COALESCE(l.actual_count, 0)
+            ORDER BY f.film_id
+            """;
+    private static final String REPAIR_LIKES_COUNT = """
+            UPDATE films f SET likes_count = (
+                SELECT COUNT(l.user_id) FROM likes l WHERE l.film_id = f.film_id
+            )
+            WHERE f.film_id IN (:ids)
             """;
     private static final String DELETE_GENRES = """
             DELETE FROM film_genres
@@ -106,7 +188,13 @@ public class FilmRepository implements FilmRepositoryInterface {
             WHERE film_id = :filmId
             ORDER BY user_id
             """;
+    private static final String LIKE_TARGETS_EXIST = """
+            SELECT
+                EXISTS (SELECT 1 FROM users WHERE user_id = :userId) AS user_exists,
+                EXISTS (SELECT 1 FROM films WHERE film_id = :filmId) AS film_exists
+            """;
     private static final String FILM_NOT_FOUND = "Фильм с id = %d не найден";
+    private static final String USER_NOT_FOUND = "Пользователь с id = %d не найден";
 
     static {
         GET_FILM_BY_ID = """
@@ -115,21 +203,68 @@ public class FilmRepository implements FilmRepositoryInterface {
                 f.description,
                 f.release_date,
                 f.duration,
-                f.mpa_id,
-                g.genre_id,
-                g.name as genre_name,
-                m.mpa_id as mpa_id,
-                m.name as mpa_name
+                f.mpa_id
                 FROM films f
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN mpa m ON f.mpa_id = m.mpa_id
-                WHERE f.film_id = :id ORDER BY g.genre_id""";
+                WHERE f.film_id = :id""";
     }
 
     private static final int DEFAULT_POPULAR_FILMS_LIMIT = 10;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int MAX_GENRE_LOOKUP_IDS = 1000;
 
     private final NamedParameterJdbcOperations jdbc;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final LikesMatrix likesMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final ReferenceDataRegistry referenceData;
+    private final FilmRowMapper filmRowMapper;
+    private final EntityVersions versions;
+    private final LikeWriteBehindBuffer likeBuffer;
+
+    @PostConstruct
+    void loadLeaderboard() {
+        Map<Long, Long> likesByFilmId = new HashMap<>();
+        Map<Long, Integer> yearByFilmId = new HashMap<>();
+        jdbc.query(GET_POPULAR_FILMS, rs -> {
+            long filmId = rs.getLong("film_id");
+            likesByFilmId.put(filmId, rs.getLong("likes_count"));
+            LocalDate releaseDate = rs.getObject("release_date", LocalDate.class);
+            if (releaseDate != null) {
+                yearByFilmId.put(filmId, releaseDate.getYear());
+            }
+        });
+        Map<Long, Set<Integer>> genreIdsByFilmId = new HashMap<>();
+        jdbc.query(GET_ALL_FILM_GENRES, rs -> {
+            genreIdsByFilmId.computeIfAbsent(rs.getLong("film_id"), id -> new HashSet<>()).add(rs.getInt("genre_id"));
+        });
+        Map<Long, PopularFilmsLeaderboard.Classification> classifications = new HashMap<>();
+        likesByFilmId.keySet().forEach(filmId -> classifications.put(filmId, new PopularFilmsLeaderboard.Classification(
+                genreIdsByFilmId.getOrDefault(filmId, Set.of()), yearByFilmId.get(filmId))));
+        leaderboard.reset(likesByFilmId, classifications);
+    }
+
+    @PostConstruct
+    void loadLikesMatrix() {
+        Map<Long, List<Long>> filmIdsByUserId = new HashMap<>();
+        jdbc.query(GET_ALL_LIKES, rs -> {
+            filmIdsByUserId.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>())
+                    .add(rs.getLong("film_id"));
+        });
+        likesMatrix.reset(filmIdsByUserId.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stream()
+                        .mapToLong(Long::longValue)
+                        .toArray())));
+    }
+
+    @PostConstruct
+    void loadSearchIndex() {
+        Map<Long, String> textByFilmId = new HashMap<>();
+        jdbc.query(GET_SEARCHABLE_TEXT, rs -> {
+            textByFilmId.put(rs.getLong("film_id"),
+                    FilmSearchIndex.searchableText(rs.getString("name"), rs.getString("description")));
+        });
+        searchIndex.reset(textByFilmId);
+    }
 
     @Transactional
     @Override
@@ -154,9 +289,72 @@ public class FilmRepository implements FilmRepositoryInterface {
         film.setId(id);
 
         updateFilmGenres(film);
+        leaderboard.addFilm(id, film.getGenres() == null ? List.of() : genreIds(film), releaseYear(film));
+        TransactionHooks.onRollback(() -> leaderboard.removeFilm(id));
+        searchIndex.index(id, film.getName(), film.getDescription());
+        TransactionHooks.onRollback(() -> searchIndex.restore(id, null));
+        versions.filmChanged(id);
         return film;
     }
 
+    // Пакетная вставка для импорта: фильмы и их жанры уходят двумя batch-запросами, индексы в памяти
+    // обновляются один раз на пакет
+    @Transactional
+    @Override
+    public List<Film> saveFilms(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        SqlParameterSource[] filmParams = new SqlParameterSource[films.size()];
+        List<List<Integer>> filmGenreIds = new ArrayList<>(films.size());
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            validateMpaExists(film.getMpa().getId());
+            filmGenreIds.add(film.getGenres() == null ? List.of() : validateGenresExist(film.getGenres()));
+            filmParams[i] = new MapSqlParameterSource()
+                    .addValue("name", film.getName())
+                    .addValue("description", film.getDescription())
+                    .addValue("releaseDate", film.getReleaseDate())
+                    .addValue("duration", film.getDuration())
+                    .addValue("mpaId", film.getMpa().getId());
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(INSERT_FILM, filmParams, keyHolder, new String[]{"film_id"});
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != films.size()) {
+            throw new InternalServerException("Не удалось создать фильмы");
+        }
+
+        List<Long> ids = new ArrayList<>(films.size());
+        List<SqlParameterSource> genreParams = new ArrayList<>();
+        Map<Long, String> textByFilmId = new HashMap<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            film.setId(id);
+            ids.add(id);
+            for (Integer genreId : filmGenreIds.get(i)) {
+                genreParams.add(new MapSqlParameterSource()
+                        .addValue("filmId", id)
+                        .addValue("genreId", genreId));
+            }
+            textByFilmId.put(id, FilmSearchIndex.searchableText(film.getName(), film.getDescription()));
+        }
+        if (!genreParams.isEmpty()) {
+            jdbc.batchUpdate(SET_FILM_GENRE, genreParams.toArray(SqlParameterSource[]::new));
+        }
+
+        for (int i = 0; i < films.size(); i++) {
+            leaderboard.addFilm(ids.get(i), filmGenreIds.get(i), releaseYear(films.get(i)));
+        }
+        TransactionHooks.onRollback(() -> ids.forEach(leaderboard::removeFilm));
+        searchIndex.addAll(textByFilmId);
+        TransactionHooks.onRollback(() -> searchIndex.removeAll(ids));
+        versions.filmsChanged(ids);
+        return films;
+    }
+
     @Transactional
     @Override
     public Film updateFilm(Film film) {
@@ -174,41 +372,108 @@ public class FilmRepository implements FilmRepositoryInterface {
         }
 
         updateFilmGenres(film);
+        // Без списка жанров в запросе жанры фильма не меняются
+        PopularFilmsLeaderboard.Classification previousClassification = leaderboard.classify(film.getId(),
+                film.getGenres() == null ? null : genreIds(film), releaseYear(film));
+        TransactionHooks.onRollback(() -> leaderboard.restore(film.getId(), previousClassification));
+        String[] previousTerms = searchIndex.index(film.getId(), film.getName(), film.getDescription());
+        TransactionHooks.onRollback(() -> searchIndex.restore(film.getId(), previousTerms));
+        versions.filmChanged(film.getId());
 
         return getFilmById(film.getId())
                 .orElseThrow(() -> new NotFoundException(String.format(FILM_NOT_FOUND, film.getId())));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Film> getAllFilms() {
-        return jdbc.query(GET_ALL_FILMS, new FilmResultSetExtractor());
+        return loadFilms(GET_ALL_FILMS, new MapSqlParameterSource());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public int exportFilms(Consumer<Film> consumer) {
+        Integer exported = jdbc.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_ALL_FILMS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, new FilmStreamingExtractor(filmRowMapper, referenceData, consumer));
+        return exported == null ? 0 : exported;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<Film> getFilmsPage(long after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit);
+        return loadFilms(GET_FILMS_PAGE, params);
     }
 
     @Override
     public Optional<Film> getFilmById(Long id) {
         MapSqlParameterSource params = new MapSqlParameterSource("id", id);
-        List<Film> films = jdbc.query(GET_FILM_BY_ID, params, new FilmResultSetExtractor());
+        List<Film> films = loadFilms(GET_FILM_BY_ID, params);
         return films.stream().findFirst(); // Возвращает Optional<Film>
     }
 
     @Override
-    public List<Film> getTheMostPopularFilms(Integer count) {
+    public List<Film> getFilmsByIds(List<Long> ids) {
+        return loadFilmsInOrder(ids);
+    }
+
+    @Override
+    public List<Film> getTheMostPopularFilms(Integer count, Integer genreId, Integer year) {
         int limit = (count == null || count <= 0) ? DEFAULT_POPULAR_FILMS_LIMIT : count;
-        MapSqlParameterSource params = new MapSqlParameterSource().addValue("limit", limit);
-        return jdbc.query(GET_POPULAR_FILMS, params, new FilmResultSetExtractor());
+        if (genreId != null && referenceData.genre(genreId) == null) {
+            throw new NotFoundException("Жанр с id=" + genreId + " не найден");
+        }
+        return loadFilmsInOrder(leaderboard.top(limit, genreId, year));
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit) {
+        return loadFilmsInOrder(searchIndex.search(query, limit));
+    }
+
+    @Override
+    public List<Film> getRecommendations(Long userId, int limit) {
+        return loadFilmsInOrder(likesMatrix.recommend(userId, limit));
     }
 
     @Transactional
     @Override
     public void addLike(Long userId, Long filmId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId);
+        if (likeBuffer.isEnabled()) {
+            // Лайк несуществующего пользователя или фильма нельзя откладывать: пачка не запишется
+            likeTargetNotFound(params).ifPresent(e -> {
+                throw e;
+            });
+            if (!recordLike(userId, filmId, true)) {
+                throw new DuplicatedDataException("Пользователь уже поставил лайк этому фильму");
+            }
+            // Буфер возвращает управление после сохранения журнала: лайк уже не потеряется
+            leaderboard.changeLikes(filmId, 1);
+            versions.likesChanged();
+            return;
+        }
         try {
-            MapSqlParameterSource params = new MapSqlParameterSource()
-                    .addValue("filmId", filmId)
-                    .addValue("userId", userId);
             jdbc.update(ADD_LIKE, params);
-        } catch (DataIntegrityViolationException e) {
+        } catch (DuplicateKeyException e) {
             throw new DuplicatedDataException("Пользователь уже поставил лайк этому фильму");
+        } catch (DataIntegrityViolationException e) {
+            throw likeTargetNotFound(params)
+                    .orElseThrow(() -> new InternalServerException("Не удалось добавить лайк"));
         }
+        jdbc.update(INCREMENT_LIKES_COUNT, new MapSqlParameterSource("filmId", filmId));
+        leaderboard.changeLikes(filmId, 1);
+        TransactionHooks.onRollback(() -> leaderboard.changeLikes(filmId, -1));
+        trackLike(userId, filmId, true);
+        versions.likesChanged();
     }
 
     @Transactional
@@ -217,20 +482,283 @@ public class FilmRepository implements FilmRepositoryInterface {
         MapSqlParameterSource params = new MapSqlParameterSource()
                 .addValue("filmId", filmId)
                 .addValue("userId", userId);
+        if (likeBuffer.isEnabled()) {
+            if (!recordLike(userId, filmId, false)) {
+                throw likeTargetNotFound(params)
+                        .orElseGet(() -> new NotFoundException("Лайк не найден"));
+            }
+            leaderboard.changeLikes(filmId, -1);
+            versions.likesChanged();
+            return;
+        }
         int deletedRows = jdbc.update(REMOVE_LIKE, params);
         if (deletedRows == 0) {
-            throw new NotFoundException("Лайк не найден");
+            throw likeTargetNotFound(params)
+                    .orElseGet(() -> new NotFoundException("Лайк не найден"));
         }
+        jdbc.update(DECREMENT_LIKES_COUNT, new MapSqlParameterSource("filmId", filmId));
+        leaderboard.changeLikes(filmId, -1);
+        TransactionHooks.onRollback(() -> leaderboard.changeLikes(filmId, 1));
+        trackLike(userId, filmId, false);
+        versions.likesChanged();
     }
 
     @Override
     public List<Long> getLikes(Long filmId) {
+        // Буфер читается до базы: изменение, записанное между двумя чтениями, попадёт хотя бы в одно из них
+        Map<Long, Boolean> pending = likeBuffer.pendingForFilm(filmId);
+        List<Long> userIds;
         try {
             MapSqlParameterSource params = new MapSqlParameterSource("filmId", filmId);
-            return jdbc.queryForList(GET_LIKES_BY_FILM_ID, params, Long.class);
+            userIds = jdbc.queryForList(GET_LIKES_BY_FILM_ID, params, Long.class);
         } catch (DataAccessException e) {
             throw new InternalServerException("Ошибка при получении списка лайков");
         }
+        if (pending.isEmpty()) {
+            return userIds;
+        }
+        Set<Long> merged = new TreeSet<>(userIds);
+        pending.forEach((userId, liked) -> {
+            if (liked) {
+                merged.add(userId);
+            } else {
+                merged.remove(userId);
+            }
+        });
+        return List.copyOf(merged);
+    }
+
+    @Override
+    public List<Long> findLikesCountDrift() {
+        return jdbc.getJdbcOperations().queryForList(FIND_LIKES_COUNT_DRIFT, Long.class);
+    }
+
+    // Пакет применяется пачками JDBC-запросов: дубликаты отсекает MERGE, а не исключение на каждую строку.
+    // Повтор пары (userId, filmId) начинает новую пачку, чтобы операции над ней выполнялись по порядку.
+    @Transactional
+    @Override
+    public List<LikeOperationStatus> applyLikes(List<LikeOperation> operations) {
+        LikeOperationStatus[] statuses = new LikeOperationStatus[operations.size()];
+        Set<Long> existingUserIds = findExistingIds(GET_EXISTING_USER_IDS, operations, LikeOperation::getUserId);
+        Set<Long> existingFilmIds = findExistingIds(GET_EXISTING_FILM_IDS, operations, LikeOperation::getFilmId);
+        if (likeBuffer.isEnabled()) {
+            return bufferLikes(operations, existingUserIds, existingFilmIds);
+        }
+        Map<Long, Long> likesDelta = new HashMap<>();
+        List<Integer> segment = new ArrayList<>();
+        Set<List<Long>> segmentKeys = new HashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (!existingUserIds.contains(operation.getUserId())) {
+                statuses[i] = LikeOperationStatus.USER_NOT_FOUND;
+                continue;
+            }
+            if (!existingFilmIds.contains(operation.getFilmId())) {
+                statuses[i] = LikeOperationStatus.FILM_NOT_FOUND;
+                continue;
+            }
+            if (!segmentKeys.add(List.of(operation.getUserId(), operation.getFilmId()))) {
+                applyLikeSegment(operations, segment, statuses, likesDelta);
+                segment.clear();
+                segmentKeys.clear();
+                segmentKeys.add(List.of(operation.getUserId(), operation.getFilmId()));
+            }
+            segment.add(i);
+        }
+        applyLikeSegment(operations, segment, statuses, likesDelta);
+
+        likesDelta.values().removeIf(delta -> delta == 0);
+        jdbc.batchUpdate(CHANGE_LIKES_COUNT, likesDelta.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("filmId", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        likesDelta.forEach((filmId, delta) -> {
+            leaderboard.changeLikes(filmId, delta);
+            TransactionHooks.onRollback(() -> leaderboard.changeLikes(filmId, -delta));
+        });
+        if (!likesDelta.isEmpty()) {
+            versions.likesChanged();
+        }
+        return List.of(statuses);
+    }
+
+    @Transactional
+    @Override
+    public int repairLikesCount() {
+        // Счётчики в рейтинге перечитываются из базы, поэтому отложенные лайки должны быть уже записаны
+        likeBuffer.flush();
+        List<Long> driftedFilmIds = findLikesCountDrift();
+        if (driftedFilmIds.isEmpty()) {
+            return 0;
+        }
+        int repairedRows = jdbc.update(REPAIR_LIKES_COUNT, new MapSqlParameterSource("ids", driftedFilmIds));
+        loadLeaderboard();
+        versions.likesChanged();
+        return repairedRows;
+    }
+
+    // Отложенная запись пакета: все применимые операции уходят в буфер одним вызовом и сохраняются в журнал
+    // одним fsync - либо целиком, либо (при ошибке записи журнала) никак
+    private List<LikeOperationStatus> bufferLikes(List<LikeOperation> operations, Set<Long> existingUserIds,
+                                                  Set<Long> existingFilmIds) {
+        LikeOperationStatus[] statuses = new LikeOperationStatus[operations.size()];
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (!existingUserIds.contains(operation.getUserId())) {
+                statuses[i] = LikeOperationStatus.USER_NOT_FOUND;
+            } else if (!existingFilmIds.contains(operation.getFilmId())) {
+                statuses[i] = LikeOperationStatus.FILM_NOT_FOUND;
+            } else {
+                positions.add(i);
+            }
+        }
+        List<Boolean> changed = recordLikes(positions.stream().map(operations::get).toList());
+        Map<Long, Long> likesDelta = new HashMap<>();
+        for (int j = 0; j < positions.size(); j++) {
+            LikeOperation operation = operations.get(positions.get(j));
+            boolean add = operation.getOp() == LikeOperation.Type.ADD;
+            if (changed.get(j)) {
+                statuses[positions.get(j)] = LikeOperationStatus.APPLIED;
+                likesDelta.merge(operation.getFilmId(), add ? 1L : -1L, Long::sum);
+            } else {
+                statuses[positions.get(j)] = add ? LikeOperationStatus.ALREADY_LIKED : LikeOperationStatus.NOT_LIKED;
+            }
+        }
+        likesDelta.forEach((filmId, delta) -> {
+            if (delta != 0) {
+                leaderboard.changeLikes(filmId, delta);
+            }
+        });
+        if (!likesDelta.isEmpty()) {
+            versions.likesChanged();
+        }
+        return List.of(statuses);
+    }
+
+    // Ошибка записи журнала ничего не меняет в буфере, поэтому повтор запроса безопасен
+    private boolean recordLike(long userId, long filmId, boolean liked) {
+        try {
+            return likeBuffer.record(userId, filmId, liked);
+        } catch (UncheckedIOException e) {
+            throw new InternalServerException("Не удалось сохранить лайк");
+        }
+    }
+
+    private List<Boolean> recordLikes(List<LikeOperation> operations) {
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return likeBuffer.record(operations);
+        } catch (UncheckedIOException e) {
+            throw new InternalServerException("Не удалось сохранить лайк");
+        }
+    }
+
+    private void trackLike(long userId, long filmId, boolean added) {
+        if (added) {
+            likesMatrix.addLike(userId, filmId);
+            TransactionHooks.onRollback(() -> likesMatrix.removeLike(userId, filmId));
+        } else {
+            likesMatrix.removeLike(userId, filmId);
+            TransactionHooks.onRollback(() -> likesMatrix.addLike(userId, filmId));
+        }
+    }
+
+    // Фильмы по списку id одним запросом, в порядке списка
+    private List<Film> loadFilmsInOrder(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Film> filmsById = loadFilms(GET_FILMS_BY_IDS, new MapSqlParameterSource("ids", filmIds)).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void applyLikeSegment(List<LikeOperation> operations, List<Integer> segment,
+                                  LikeOperationStatus[] statuses, Map<Long, Long> likesDelta) {
+        Map<LikeOperation.Type, List<Integer>> positionsByType = segment.stream()
+                .collect(Collectors.groupingBy(i -> operations.get(i).getOp()));
+        applyLikeBatch(MERGE_LIKE, operations, positionsByType.getOrDefault(LikeOperation.Type.ADD, List.of()),
+                statuses, LikeOperationStatus.ALREADY_LIKED, 1, likesDelta);
+        applyLikeBatch(REMOVE_LIKE, operations, positionsByType.getOrDefault(LikeOperation.Type.REMOVE, List.of()),
+                statuses, LikeOperationStatus.NOT_LIKED, -1, likesDelta);
+    }
+
+    private void applyLikeBatch(String sql, List<LikeOperation> operations, List<Integer> positions,
+                                LikeOperationStatus[] statuses, LikeOperationStatus unchangedStatus,
+                                long delta, Map<Long, Long> likesDelta) {
+        if (positions.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = positions.stream()
+                .map(operations::get)
+                .map(operation -> new MapSqlParameterSource()
+                        .addValue("filmId", operation.getFilmId())
+                        .addValue("userId", operation.getUserId()))
+                .toArray(SqlParameterSource[]::new);
+        int[] updatedRows = jdbc.batchUpdate(sql, batch);
+        for (int j = 0; j < positions.size(); j++) {
+            int position = positions.get(j);
+            if (updatedRows[j] > 0) {
+                statuses[position] = LikeOperationStatus.APPLIED;
+                likesDelta.merge(operations.get(position).getFilmId(), delta, Long::sum);
+                trackLike(operations.get(position).getUserId(), operations.get(position).getFilmId(), delta > 0);
+            } else {
+                statuses[position] = unchangedStatus;
+            }
+        }
+    }
+
+    private Set<Long> findExistingIds(String sql, List<LikeOperation> operations, Function<LikeOperation, Long> id) {
+        List<Long> ids = operations.stream()
+                .map(id)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList(sql, new MapSqlParameterSource("ids", ids), Long.class));
+    }
+
+    // Существование пользователя и фильма проверяется только после неудачной записи, а не перед каждой
+    private Optional<NotFoundException> likeTargetNotFound(MapSqlParameterSource params) {
+        return jdbc.queryForObject(LIKE_TARGETS_EXIST, params, (rs, rowNum) -> {
+            if (!rs.getBoolean("user_exists")) {
+                return Optional.of(new NotFoundException(String.format(USER_NOT_FOUND, params.getValue("userId"))));
+            }
+            if (!rs.getBoolean("film_exists")) {
+                return Optional.of(new NotFoundException(String.format(FILM_NOT_FOUND, params.getValue("filmId"))));
+            }
+            return Optional.empty();
+        });
+    }
+
+    // Двухфазная загрузка: сначала строки фильмов, затем жанры всей страницы одним запросом
+    private List<Film> loadFilms(String sql, MapSqlParameterSource params) {
+        List<Film> films = jdbc.query(sql, params, filmRowMapper);
+        if (films.isEmpty()) {
+            return films;
+        }
+        FilmIdIndex index = new FilmIdIndex(films);
+        RowCallbackHandler genreHandler = rs -> {
+            int position = index.indexOf(rs.getLong("film_id"));
+            if (position >= 0) {
+                films.get(position).getGenres().add(referenceData.genre(rs.getInt("genre_id")));
+            }
+        };
+        if (films.size() > MAX_GENRE_LOOKUP_IDS) {
+            jdbc.query(GET_ALL_FILM_GENRES, genreHandler);
+        } else {
+            List<Long> filmIds = films.stream().map(Film::getId).toList();
+            jdbc.query(GET_GENRES_BY_FILM_IDS, new MapSqlParameterSource("ids", filmIds), genreHandler);
+        }
+        return films;
     }
 
     private void updateFilmGenres(Film film) {
@@ -258,68 +786,64 @@ public class FilmRepository implements FilmRepositoryInterface {
                 .distinct()
                 .toList();
 
-        String sql = "SELECT COUNT(genre_id) FROM genres WHERE genre_id IN (:ids)";
-        Integer count = jdbc.queryForObject(sql,
-                new MapSqlParameterSource("ids", genreIds),
-                Integer.class);
-
-        if (count == null || count != genreIds.size()) {
+        if (genreIds.stream().anyMatch(genreId -> referenceData.genre(genreId) == null)) {
             throw new NotFoundException("Один или несколько жанров не найдены");
         }
         return genreIds;
     }
 
+    private static List<Integer> genreIds(Film film) {
+        return film.getGenres().stream()
+                .map(Genre::getId)
+                .toList();
+    }
+
+    private static Integer releaseYear(Film film) {
+        return film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+    }
+
     private void validateMpaExists(Integer mpaId) {
-        if (mpaId != null) {
-            String sql = "SELECT COUNT(mpa_id) FROM mpa WHERE mpa_id = :mpaId";
-            Integer count = jdbc.queryForObject(sql,
-                    new MapSqlParameterSource("mpaId", mpaId),
-                    Integer.class);
-
-            if (count == null || count == 0) {
-                throw new NotFoundException("Рейтинг MPA с id=" + mpaId + " не найден");
-            }
+        if (mpaId != null && referenceData.mpa(mpaId) == null) {
+            throw new NotFoundException("Рейтинг MPA с id=" + mpaId + " не найден");
         }
     }
 
-    static class FilmResultSetExtractor implements ResultSetExtractor<List<Film>> {
+    // Строки приходят отсортированными по film_id, поэтому фильм отдаётся потребителю, как только начался следующий
+    static class FilmStreamingExtractor implements ResultSetExtractor<Integer> {
+        private final FilmRowMapper rowMapper;
+        private final ReferenceDataRegistry referenceData;
+        private final Consumer<Film> consumer;
+
+        FilmStreamingExtractor(FilmRowMapper rowMapper, ReferenceDataRegistry referenceData,
+                               Consumer<Film> consumer) {
+            this.rowMapper = rowMapper;
+            this.referenceData = referenceData;
+            this.consumer = consumer;
+        }
+
         @Override
-        public List<Film> extractData(ResultSet rs) throws SQLException {
-            Map<Long, Film> filmsMap = new LinkedHashMap<>();
-            try {
-                while (rs.next()) {
-                    Long filmId = rs.getLong("film_id");
-                    Film film = filmsMap.computeIfAbsent(filmId, id -> {
-                        try {
-                            return Film.builder()
-                                    .id(rs.getLong("film_id"))
-                                    .name(rs.getString("name"))
-                                    .description(rs.getString("description"))
-                                    .releaseDate(rs.getObject("release_date", LocalDate.class))
-                                    .duration(rs.getInt("duration"))
-                                    .mpa(new Mpa(
-                                            rs.getInt("mpa_id"),
-                                            rs.getString("mpa_name")
-                                    ))
-                                    .genres(new ArrayList<>())
-                                    .build();
-                        } catch (SQLException e) {
-                            throw new InternalServerException("Ошибка при обработке данных фильма из БД");
-                        }
-                    });
-
-                    if (rs.getObject("genre_id") != null) {
-                        film.getGenres().add(new Genre(
-                                rs.getInt("genre_id"),
-                                rs.getString("genre_name")
-                        ));
+        public Integer extractData(ResultSet rs) throws SQLException {
+            int exported = 0;
+            Film current = null;
+            while (rs.next()) {
+                long filmId = rs.getLong("film_id");
+                if (current == null || current.getId() != filmId) {
+                    if (current != null) {
+                        consumer.accept(current);
+                        exported++;
                     }
+                    current = rowMapper.mapRow(rs, 0);
+                }
+                int genreId = rs.getInt("genre_id");
+                if (!rs.wasNull()) {
+                    current.getGenres().add(referenceData.genre(genreId));
                 }
-            } catch (SQLException e) {
-                throw new InternalServerException("Ошибка при чтении данных из ResultSet");
             }
-
-            return new ArrayList<>(filmsMap.values());
+            if (current != null) {
+                consumer.accept(current);
+                exported++;
+            }
+            return exported;
         }
     }
 }
\ No newline at end of file
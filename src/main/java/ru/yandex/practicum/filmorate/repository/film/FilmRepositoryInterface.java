@@ -1,24 +1,45 @@
 package ru.yandex.practicum.filmorate.repository.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface FilmRepositoryInterface {
     Film saveFilm(Film film);
 
+    List<Film> saveFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     List<Film> getAllFilms();
 
+    List<Film> getFilmsPage(long after, int limit);
+
+    int exportFilms(Consumer<Film> consumer);
+
     Optional<Film> getFilmById(Long id);
 
+    List<Film> getFilmsByIds(List<Long> ids);
+
     void addLike(Long userId, Long filmId);
 
     void removeLike(Long userId, Long filmId);
 
-    List<Film> getTheMostPopularFilms(Integer count);
+    List<Film> getTheMostPopularFilms(Integer count, Integer genreId, Integer year);
+
+    List<Film> getRecommendations(Long userId, int limit);
+
+    List<Film> searchFilms(String query, int limit);
 
     List<Long> getLikes(Long filmId);
+
+    List<LikeOperationStatus> applyLikes(List<LikeOperation> operations);
+
+    List<Long> findLikesCountDrift();
+
+    int repairLikesCount();
 }
\ No newline at end of file
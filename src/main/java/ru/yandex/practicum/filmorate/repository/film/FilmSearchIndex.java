@@ -0,0 +1,346 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.SortedLongArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+// Инвертированный индекс по названиям и описаниям фильмов: слово -> отсортированный long[] id фильмов.
+// Словарь отсортирован, поэтому последнее слово запроса ищется по префиксу (автодополнение), остальные - целиком.
+// Результаты ранжируются по лайкам из PopularFilmsLeaderboard: небольшой набор кандидатов сортируется напрямую,
+// а при большом наборе быстрее пройти рейтинг сверху и остановиться на первых подходящих фильмах
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final Comparator<String> BY_TERM = Comparator.naturalOrder();
+    // Сколько списков префикса проверяется напрямую; при большем числе слов проверяются слова фильма
+    private static final int MAX_PREFIX_POSTINGS = 8;
+    // Во сколько раз длинный список должен превосходить кандидатов, чтобы двоичный поиск был выгоднее слияния
+    private static final int MERGE_SIZE_RATIO = 16;
+
+    private final PopularFilmsLeaderboard leaderboard;
+    private final NavigableMap<String, long[]> filmsByTerm = new ConcurrentSkipListMap<>(BY_TERM);
+    // Отсортированные слова фильма: нужны для снятия старых слов при обновлении и для проверки префикса
+    private final Map<Long, String[]> termsByFilmId = new ConcurrentHashMap<>();
+
+    public void reset(Map<Long, String> textByFilmId) {
+        filmsByTerm.clear();
+        termsByFilmId.clear();
+        Map<String, String> dictionary = new HashMap<>();
+        Map<String, Integer> filmsPerTerm = new HashMap<>();
+        textByFilmId.forEach((filmId, text) -> {
+            String[] terms = tokenize(text);
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = dictionary.computeIfAbsent(terms[i], term -> term);
+                filmsPerTerm.merge(terms[i], 1, Integer::sum);
+            }
+            termsByFilmId.put(filmId, terms);
+        });
+        Map<String, long[]> films = new HashMap<>(filmsPerTerm.size() * 2);
+        Map<String, Integer> filled = new HashMap<>(filmsPerTerm.size() * 2);
+        filmsPerTerm.forEach((term, count) -> films.put(term, new long[count]));
+        termsByFilmId.forEach((filmId, terms) -> {
+            for (String term : terms) {
+                films.get(term)[filled.merge(term, 1, Integer::sum) - 1] = filmId;
+            }
+        });
+        films.forEach((term, filmIds) -> {
+            Arrays.sort(filmIds);
+            filmsByTerm.put(term, filmIds);
+        });
+    }
+
+    // Возвращает прежние слова фильма (null, если его не было) - для отката через restore
+    public String[] index(long filmId, String name, String description) {
+        return replace(filmId, tokenize(searchableText(name, description)));
+    }
+
+    public void restore(long filmId, String[] terms) {
+        replace(filmId, terms);
+    }
+
+    // Индексация пачки новых фильмов: список фильмов каждого слова копируется один раз на пачку, а не на фильм
+    public void addAll(Map<Long, String> textByFilmId) {
+        Map<String, List<Long>> filmIdsByTerm = new HashMap<>();
+        textByFilmId.forEach((filmId, text) -> {
+            String[] terms = tokenize(text);
+            termsByFilmId.put(filmId, terms);
+            for (String term : terms) {
+                filmIdsByTerm.computeIfAbsent(term, key -> new ArrayList<>()).add(filmId);
+            }
+        });
+        filmIdsByTerm.forEach((term, filmIds) -> filmsByTerm.merge(term, sorted(filmIds), SortedLongArrays::union));
+    }
+
+    public void removeAll(Collection<Long> filmIds) {
+        Map<String, List<Long>> filmIdsByTerm = new HashMap<>();
+        for (Long filmId : filmIds) {
+            String[] terms = termsByFilmId.remove(filmId);
+            if (terms != null) {
+                for (String term : terms) {
+                    filmIdsByTerm.computeIfAbsent(term, key -> new ArrayList<>()).add(filmId);
+                }
+            }
+        }
+        filmIdsByTerm.forEach((term, removed) -> filmsByTerm.computeIfPresent(term, (key, films) -> {
+            long[] rest = SortedLongArrays.difference(films, sorted(removed));
+            return rest.length == 0 ? null : rest;
+        }));
+    }
+
+    // Фильмы, содержащие все слова запроса, по убыванию лайков
+    public List<Long> search(String query, int limit) {
+        String[] tokens = tokenizeQuery(query);
+        if (tokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        long[][] words = new long[tokens.length - 1][];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = filmsByTerm.getOrDefault(tokens[i], SortedLongArrays.EMPTY);
+        }
+        // Самый короткий список первым: перебор начинается с него, остальные только сужают результат
+        Arrays.sort(words, Comparator.comparingInt(filmIds -> filmIds.length));
+        PrefixMatch prefix = new PrefixMatch(tokens[tokens.length - 1]);
+        if (prefix.films == 0 || words.length > 0 && words[0].length == 0) {
+            return List.of();
+        }
+        boolean prefixDrives = words.length == 0 || prefix.films < words[0].length;
+        long candidates = prefixDrives ? prefix.films : words[0].length;
+
+        // Ожидаемое число совпадений при независимых словах. До limit совпадений обход рейтинга проходит около
+        // limit * фильмы / совпадения позиций, и каждая позиция проверяется по всем словам
+        double films = Math.max(leaderboard.size(), 1);
+        double expected = prefix.films;
+        for (long[] filmIds : words) {
+            expected = expected * filmIds.length / films;
+        }
+        if (expected > 0 && limit * films / expected * (words.length + 1) < candidates) {
+            return leaderboard.top(limit, filmId -> containsAll(words, filmId) && prefix.matches(filmId));
+        }
+
+        long[] matched = prefixDrives ? prefix.union() : words[0];
+        for (int i = prefixDrives ? 0 : 1; i < words.length && matched.length > 0; i++) {
+            matched = retainAll(matched, words[i]);
+        }
+        if (!prefixDrives) {
+            matched = prefix.retain(matched);
+        }
+        return rankByLikes(matched, limit);
+    }
+
+    public int size() {
+        return termsByFilmId.size();
+    }
+
+    // Слова - максимальные последовательности букв и цифр любого алфавита в нижнем регистре; ё приравнивается к е
+    static String[] tokenize(String text) {
+        TreeSet<String> terms = new TreeSet<>(BY_TERM);
+        forEachToken(text, terms::add);
+        return terms.toArray(String[]::new);
+    }
+
+    // В запросе порядок слов важен: последнее слово - префикс
+    private static String[] tokenizeQuery(String query) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(query, tokens::add);
+        return tokens.toArray(String[]::new);
+    }
+
+    private static void forEachToken(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i <= text.length()) {
+            int codePoint = i < text.length() ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                int lower = Character.toLowerCase(codePoint);
+                token.appendCodePoint(lower == 'ё' ? 'е' : lower);
+            } else if (!token.isEmpty()) {
+                consumer.accept(token.toString());
+                token.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+    }
+
+    static String searchableText(String name, String description) {
+        if (description == null) {
+            return name;
+        }
+        return name == null ? description : name + " " + description;
+    }
+
+    private static long[] sorted(List<Long> filmIds) {
+        return filmIds.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+    }
+
+    private String[] replace(long filmId, String[] terms) {
+        String[] previous = terms == null ? termsByFilmId.remove(filmId) : termsByFilmId.put(filmId, terms);
+        String[] removed = previous == null ? new String[0] : previous;
+        String[] added = terms == null ? new String[0] : terms;
+        for (String term : removed) {
+            if (Arrays.binarySearch(added, term, BY_TERM) < 0) {
+                filmsByTerm.computeIfPresent(term, (key, filmIds) -> SortedLongArrays.remove(filmIds, filmId));
+            }
+        }
+        for (String term : added) {
+            if (Arrays.binarySearch(removed, term, BY_TERM) < 0) {
+                filmsByTerm.compute(term, (key, filmIds) ->
+                        SortedLongArrays.insert(filmIds == null ? SortedLongArrays.EMPTY : filmIds, filmId));
+            }
+        }
+        return previous;
+    }
+
+    private boolean hasTermWithPrefix(long filmId, String prefix) {
+        String[] terms = termsByFilmId.get(filmId);
+        if (terms == null) {
+            return false;
+        }
+        int position = Arrays.binarySearch(terms, prefix, BY_TERM);
+        if (position >= 0) {
+            return true;
+        }
+        int next = -position - 1;
+        return next < terms.length && terms[next].startsWith(prefix);
+    }
+
+    // Обход рейтинга выгоднее сортировки, когда кандидатов больше sqrt(limit * число фильмов):
+    // до limit совпадений он проходит примерно limit * фильмы / кандидаты позиций
+    private long rankingWalkThreshold(int limit) {
+        return Math.max(limit, (long) Math.sqrt((double) limit * leaderboard.size()));
+    }
+
+    private static boolean containsAll(long[][] words, long filmId) {
+        for (long[] filmIds : words) {
+            if (!SortedLongArrays.contains(filmIds, filmId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Слияние, если списки соизмеримы, иначе двоичный поиск каждого кандидата в длинном списке
+    private static long[] retainAll(long[] candidates, long[] filmIds) {
+        if (filmIds.length / MERGE_SIZE_RATIO <= candidates.length) {
+            return SortedLongArrays.intersect(candidates, filmIds);
+        }
+        long[] retained = new long[candidates.length];
+        int size = 0;
+        for (long filmId : candidates) {
+            if (SortedLongArrays.contains(filmIds, filmId)) {
+                retained[size++] = filmId;
+            }
+        }
+        return Arrays.copyOf(retained, size);
+    }
+
+    // Последнее слово запроса - все слова словаря с этим префиксом
+    private final class PrefixMatch {
+        private final String prefix;
+        private final List<long[]> postings = new ArrayList<>();
+        // Сумма длин списков с повторами - верхняя граница числа фильмов
+        private long films;
+        // Все списки префикса собраны, и их немного
+        private boolean narrow = true;
+
+        PrefixMatch(String prefix) {
+            this.prefix = prefix;
+            // Широкий префикс не перебирает весь хвост словаря: подсчёт останавливается на числе фильмов
+            long limit = Math.max(leaderboard.size(), termsByFilmId.size());
+            for (long[] filmIds : terms().values()) {
+                films += filmIds.length;
+                if (postings.size() == MAX_PREFIX_POSTINGS) {
+                    narrow = false;
+                } else {
+                    postings.add(filmIds);
+                }
+                if (films >= limit) {
+                    narrow = false;
+                    break;
+                }
+            }
+        }
+
+        // Немного слов - проверка по их спискам, иначе по словам самого фильма
+        boolean matches(long filmId) {
+            if (!narrow) {
+                return hasTermWithPrefix(filmId, prefix);
+            }
+            for (long[] filmIds : postings) {
+                if (SortedLongArrays.contains(filmIds, filmId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long[] retain(long[] candidates) {
+            long[] retained = new long[candidates.length];
+            int size = 0;
+            for (long filmId : candidates) {
+                if (matches(filmId)) {
+                    retained[size++] = filmId;
+                }
+            }
+            return Arrays.copyOf(retained, size);
+        }
+
+        // Вызывается, только когда префикс - самое узкое условие, поэтому списки короткие
+        long[] union() {
+            return SortedLongArrays.union(narrow ? postings : new ArrayList<>(terms().values()));
+        }
+
+        private NavigableMap<String, long[]> terms() {
+            return filmsByTerm.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+    }
+
+    private List<Long> rankByLikes(long[] candidates, int limit) {
+        if (candidates.length >= rankingWalkThreshold(limit)) {
+            return leaderboard.top(limit, filmId -> SortedLongArrays.contains(candidates, filmId));
+        }
+        // Топ-limit вставками в короткие массивы: кандидатов здесь немного, а limit мал
+        long[] topIds = new long[Math.min(limit, candidates.length)];
+        long[] topLikes = new long[topIds.length];
+        int size = 0;
+        for (long filmId : candidates) {
+            long likes = leaderboard.getLikes(filmId);
+            int position = size;
+            while (position > 0 && likes > topLikes[position - 1]) {
+                position--;
+            }
+            if (position == topIds.length) {
+                continue;
+            }
+            int shifted = Math.min(size, topIds.length - 1) - position;
+            System.arraycopy(topIds, position, topIds, position + 1, shifted);
+            System.arraycopy(topLikes, position, topLikes, position + 1, shifted);
+            topIds[position] = filmId;
+            topLikes[position] = likes;
+            size = Math.min(size + 1, topIds.length);
+        }
+        List<Long> filmIds = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            filmIds.add(topIds[i]);
+        }
+        return filmIds;
+    }
+}
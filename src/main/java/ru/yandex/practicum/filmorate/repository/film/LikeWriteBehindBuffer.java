@@ -0,0 +1,727 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Отложенная запись лайков (filmorate.likes.write-behind.enabled): лайк сначала попадает в журнал на диске
+// и в буфер в памяти, а в таблицу likes уходит пачкой - по заполнении буфера до flush-size или раз в
+// flush-interval. Буфер хранит для пары (пользователь, фильм) только последнее состояние, поэтому
+// лайк и его отмена до сброса дают одну запись. Текущее состояние лайков - LikesMatrix, которая
+// обновляется вместе с буфером; незаписанные лайки при старте дописываются в базу из журнала.
+//
+// Изменение пары занимает её состояние в буфере через putIfAbsent/replace, без блокировки на время записи
+// журнала; параллельное изменение той же пары ждёт его завершения. В LikesMatrix изменение попадает только
+// после fsync журнала, а при ошибке записи состояние возвращается. Единственная блокировка на пути
+// записи - разделяемая блокировка чтения journalLock, которая не даёт сбросу сменить сегмент журнала,
+// пока записи в него не завершены
+@Slf4j
+@Component
+public class LikeWriteBehindBuffer implements AutoCloseable {
+    private static final String MERGE_LIKE = """
+            MERGE INTO likes l
+            USING (VALUES (CAST(:filmId AS BIGINT), CAST(:userId AS BIGINT))) AS s (film_id, user_id)
+            ON l.film_id = s.film_id AND l.user_id = s.user_id
+            WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (s.film_id, s.user_id)
+            """;
+    private static final String REMOVE_LIKE = """
+            DELETE FROM likes
+            WHERE user_id = :userId AND film_id = :filmId
+            """;
+    private static final String CHANGE_LIKES_COUNT = """
+            UPDATE films SET likes_count = likes_count + :delta
+            WHERE film_id = :filmId
+            """;
+
+    private final boolean enabled;
+    private final NamedParameterJdbcOperations jdbc;
+    private final TransactionTemplate transactions;
+    private final LikesMatrix likesMatrix;
+    private final Path journalDir;
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final boolean fsync;
+    private final SegmentOpener segmentOpener;
+
+    private static final Comparator<Like> LIKE_ORDER = Comparator.comparingLong(Like::filmId)
+            .thenComparingLong(Like::userId);
+
+    private final Map<Like, State> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // Запись в буфер берёт блокировку на чтение, смена сегмента журнала со снимком буфера - на запись:
+    // всё, что попало в закрытый сегмент, попадает и в снимок, а незавершённых изменений в снимке нет
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private Journal journal;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LikeWriteBehindBuffer(NamedParameterJdbcOperations jdbc,
+                                 PlatformTransactionManager transactionManager,
+                                 LikesMatrix likesMatrix,
+                                 @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${filmorate.likes.write-behind.journal-dir:./db/likes-journal}") Path journalDir,
+                                 @Value("${filmorate.likes.write-behind.flush-size:1000}") int flushSize,
+                                 @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                 @Value("${filmorate.likes.write-behind.fsync:true}") boolean fsync) {
+        this(jdbc, transactionManager, likesMatrix, enabled, journalDir, flushSize, flushInterval, fsync,
+                segment -> FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND));
+    }
+
+    // segmentOpener открывает сегмент журнала на дозапись; в тестах подменяется, чтобы имитировать ошибки диска
+    public LikeWriteBehindBuffer(NamedParameterJdbcOperations jdbc,
+                                 PlatformTransactionManager transactionManager,
+                                 LikesMatrix likesMatrix,
+                                 boolean enabled,
+                                 Path journalDir,
+                                 int flushSize,
+                                 Duration flushInterval,
+                                 boolean fsync,
+                                 SegmentOpener segmentOpener) {
+        this.enabled = enabled;
+        this.jdbc = jdbc;
+        // Сброс не присоединяется к транзакции вызывающего: буфер очищается только после настоящего коммита
+        this.transactions = enabled ? new TransactionTemplate(transactionManager) : null;
+        if (this.transactions != null) {
+            this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        this.likesMatrix = likesMatrix;
+        this.journalDir = journalDir;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.fsync = fsync;
+        this.segmentOpener = segmentOpener;
+    }
+
+    // Буфер без отложенной записи - для сборки репозитория вне Spring
+    public static LikeWriteBehindBuffer disabled() {
+        return new LikeWriteBehindBuffer(null, null, null, false, null, 0, null, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Дописывает в базу лайки, оставшиеся в журнале после прошлого запуска, и запускает сброс по таймеру.
+    // Вызывается до загрузки in-memory индексов FilmRepository, которые читают лайки из базы
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(journalDir);
+        List<Path> segments = Journal.segments(journalDir);
+        Map<Like, Boolean> recovered = Journal.replay(segments);
+        if (!recovered.isEmpty()) {
+            transactions.executeWithoutResult(status -> write(recovered));
+            log.info("Из журнала лайков восстановлено и записано в базу {} изменений", recovered.size());
+        }
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        journal = new Journal(journalDir, Journal.nextSequence(segments), fsync, segmentOpener);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("likes-write-behind").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Ставит (liked = true) или снимает лайк. false - состояние уже такое, ничего не записано
+    public boolean record(long userId, long filmId, boolean liked) {
+        return record(List.of(new LikeOperation(userId, filmId,
+                liked ? LikeOperation.Type.ADD : LikeOperation.Type.REMOVE))).getFirst();
+    }
+
+    // Применяет операции по порядку и возвращает для каждой, изменила ли она состояние. Пакет сохраняется
+    // в журнал одним fsync и применяется целиком: при ошибке записи (UncheckedIOException) не меняется ничего.
+    // Изменения видны в LikesMatrix и getLikes только после сохранения журнала на диск
+    public List<Boolean> record(List<LikeOperation> operations) {
+        Boolean[] changed = new Boolean[operations.size()];
+        Arrays.fill(changed, false);
+        // Пары занимаются в порядке ключа, чтобы два пакета не ждали друг друга по кругу
+        Map<Like, List<Integer>> positionsByLike = new TreeMap<>(LIKE_ORDER);
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            positionsByLike.computeIfAbsent(new Like(operation.getFilmId(), operation.getUserId()),
+                    like -> new ArrayList<>()).add(i);
+        }
+        List<Claim> claims = new ArrayList<>();
+        journalLock.readLock().lock();
+        try {
+            positionsByLike.forEach((like, positions) -> {
+                Claim claim = claim(like, positions, operations, changed);
+                if (claim != null) {
+                    claims.add(claim);
+                }
+            });
+            if (!claims.isEmpty()) {
+                writeJournal(claims);
+                claims.forEach(this::publish);
+            }
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        if (pendingCount.get() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return Arrays.asList(changed);
+    }
+
+    // Незаписанные изменения лайков фильма: userId -> поставлен ли лайк. Для изменения, журнал которого
+    // ещё не сохранён, берётся предыдущее состояние
+    public Map<Long, Boolean> pendingForFilm(long filmId) {
+        if (pendingCount.get() == 0) {
+            return Map.of();
+        }
+        Map<Long, Boolean> changes = new HashMap<>();
+        pending.forEach((like, state) -> {
+            if (like.filmId() != filmId) {
+                return;
+            }
+            State previous = state.previous;
+            State visible = state.done.getNow(false) ? state : previous;
+            if (visible != null) {
+                changes.put(like.userId(), visible.liked);
+            }
+        });
+        return changes;
+    }
+
+    public int pendingSize() {
+        return pendingCount.get();
+    }
+
+    // Записывает снимок буфера в базу одной транзакцией и удаляет вошедшие в него сегменты журнала.
+    // Изменения, сделанные во время записи, остаются в буфере до следующего сброса
+    public int flush() {
+        if (!enabled) {
+            return 0;
+        }
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<Like, State> snapshot;
+            journalLock.writeLock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    journal.truncate();
+                    return 0;
+                }
+                journal.rotate();
+                snapshot = new HashMap<>(pending);
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+            Map<Like, Boolean> changes = new HashMap<>();
+            snapshot.forEach((like, state) -> changes.put(like, state.liked));
+            transactions.executeWithoutResult(status -> write(changes));
+            snapshot.forEach((like, state) -> {
+                if (pending.remove(like, state)) {
+                    pendingCount.decrementAndGet();
+                }
+            });
+            journal.deleteSealed();
+            return snapshot.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (!enabled || journal == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        flushQuietly();
+        journal.close();
+    }
+
+    // Занимает пару: ждёт незавершённое изменение той же пары, проходит операции пакета от текущего
+    // состояния и ставит итоговое состояние в буфер. null - итог совпал с текущим состоянием
+    private Claim claim(Like like, List<Integer> positions, List<LikeOperation> operations, Boolean[] changed) {
+        while (true) {
+            State state = pending.get(like);
+            if (state != null && !state.done.isDone()) {
+                state.done.join();
+                continue;
+            }
+            boolean current = state != null ? state.liked : likesMatrix.hasLike(like.userId(), like.filmId());
+            boolean result = current;
+            for (int position : positions) {
+                boolean liked = operations.get(position).getOp() == LikeOperation.Type.ADD;
+                changed[position] = liked != result;
+                result = liked;
+            }
+            if (result == current) {
+                return null;
+            }
+            State next = new State(result, state);
+            if (state == null ? pending.putIfAbsent(like, next) == null : pending.replace(like, state, next)) {
+                if (state == null) {
+                    pendingCount.incrementAndGet();
+                }
+                return new Claim(like, state, next);
+            }
+        }
+    }
+
+    private void writeJournal(List<Claim> claims) {
+        ByteBuffer records = ByteBuffer.allocate(claims.size() * Journal.RECORD_SIZE);
+        for (Claim claim : claims) {
+            records.putLong(claim.like().userId())
+                    .putLong(claim.like().filmId())
+                    .put((byte) (claim.next().liked ? 1 : 0));
+        }
+        try {
+            journal.write(records.flip());
+        } catch (RuntimeException e) {
+            claims.forEach(this::undo);
+            throw e;
+        }
+    }
+
+    private void publish(Claim claim) {
+        if (claim.next().liked) {
+            likesMatrix.addLike(claim.like().userId(), claim.like().filmId());
+        } else {
+            likesMatrix.removeLike(claim.like().userId(), claim.like().filmId());
+        }
+        claim.next().done.complete(true);
+        claim.next().previous = null;
+    }
+
+    // Пока изменение не завершено, пару никто не меняет, поэтому возврат прежнего состояния всегда удаётся.
+    // Журнал к этому моменту уже отрезал неподтверждённые записи, и при восстановлении они не применятся
+    private void undo(Claim claim) {
+        if (claim.previous() == null) {
+            pending.remove(claim.like(), claim.next());
+            pendingCount.decrementAndGet();
+        } else {
+            pending.replace(claim.like(), claim.next(), claim.previous());
+        }
+        claim.next().done.complete(false);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException | UncheckedIOException e) {
+            log.error("Не удалось записать лайки в базу, {} изменений остаются в буфере и журнале: {}",
+                    pendingCount.get(), e.getMessage());
+        }
+    }
+
+    // Счётчик лайков меняется по числу реально вставленных и удалённых строк, поэтому повторная
+    // запись того же журнала после сбоя ничего не портит
+    private void write(Map<Like, Boolean> changes) {
+        List<Like> added = new ArrayList<>();
+        List<Like> removed = new ArrayList<>();
+        changes.forEach((like, liked) -> (liked ? added : removed).add(like));
+        Map<Long, Long> likesDelta = new HashMap<>();
+        writeBatch(MERGE_LIKE, added, 1, likesDelta);
+        writeBatch(REMOVE_LIKE, removed, -1, likesDelta);
+        likesDelta.values().removeIf(delta -> delta == 0);
+        jdbc.batchUpdate(CHANGE_LIKES_COUNT, likesDelta.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("filmId", entry.getKey())
+                        .addValue("delta", entry.getValue()))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    private void writeBatch(String sql, List<Like> likes, long delta, Map<Long, Long> likesDelta) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        int[] updatedRows = jdbc.batchUpdate(sql, likes.stream()
+                .map(like -> new MapSqlParameterSource()
+                        .addValue("filmId", like.filmId())
+                        .addValue("userId", like.userId()))
+                .toArray(SqlParameterSource[]::new));
+        for (int i = 0; i < likes.size(); i++) {
+            if (updatedRows[i] > 0) {
+                likesDelta.merge(likes.get(i).filmId(), delta, Long::sum);
+            }
+        }
+    }
+
+    record Like(long filmId, long userId) {
+    }
+
+    // Состояние пары в буфере; done завершается true, когда изменение сохранено в журнале, и false, когда отменено.
+    // Сравнивается по ссылке: replace и remove снимают только то состояние, которое видел вызывающий
+    private static final class State {
+        private final boolean liked;
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+        // Видимое состояние пары, пока изменение не сохранено; null - состояние в базе и LikesMatrix
+        private volatile State previous;
+
+        State(boolean liked, State previous) {
+            this.liked = liked;
+            this.previous = previous;
+        }
+    }
+
+    private record Claim(Like like, State previous, State next) {
+    }
+
+    @FunctionalInterface
+    public interface SegmentOpener {
+        FileChannel open(Path segment) throws IOException;
+    }
+
+
+    // Журнал из сегментов segment-<номер>.log с записями фиксированной длины: userId, filmId, признак лайка.
+    // Сегмент закрывается при каждом сбросе и удаляется, когда его содержимое записано в базу.
+    // Пакет подтверждается, когда его записи сохранены на диск (без fsync - записаны в файл). При ошибке записи
+    // или fsync сегмент обрезается до последнего подтверждённого пакета, а все неподтверждённые пакеты
+    // получают ошибку. Если обрезать не удалось, сегмент закрывается под именем segment-<номер>.log.<длина>,
+    // и при восстановлении из него читается только подтверждённое начало
+    private static final class Journal {
+        private static final int RECORD_SIZE = Long.BYTES * 2 + 1;
+        private static final String PREFIX = "segment-";
+        private static final String SUFFIX = ".log";
+
+        private final Path dir;
+        private final boolean fsync;
+        private final SegmentOpener opener;
+        private final List<Path> sealed = new ArrayList<>();
+        // ReentrantLock, а не synchronized: fsync под монитором закрепил бы виртуальный поток за несущим.
+        // syncLock - очередь на fsync, writeLock - запись в файл и поля ниже; берутся в этом порядке
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final ArrayDeque<Batch> unconfirmed = new ArrayDeque<>();
+        // Длина текущего сегмента и его подтверждённое начало
+        private long size;
+        private long committed;
+        // Растёт при каждом отрезании: пакет другого поколения уже отрезан
+        private long generation;
+        private boolean closed;
+        private long sequence;
+        private Path current;
+        private FileChannel channel;
+
+        Journal(Path dir, long sequence, boolean fsync, SegmentOpener opener) throws IOException {
+            this.dir = dir;
+            this.fsync = fsync;
+            this.opener = opener;
+            this.sequence = sequence;
+            open();
+        }
+
+        static List<Path> segments(Path dir) throws IOException {
+            try (Stream<Path> files = Files.list(dir)) {
+                return files.filter(file -> sequenceOf(file) >= 0)
+                        .sorted((first, second) -> Long.compare(sequenceOf(first), sequenceOf(second)))
+                        .toList();
+            }
+        }
+
+        static long nextSequence(List<Path> segments) {
+            return segments.isEmpty() ? 0 : sequenceOf(segments.getLast()) + 1;
+        }
+
+        // Последнее состояние каждой пары по всем сегментам; недописанная при сбое запись в конце отбрасывается
+        static Map<Like, Boolean> replay(List<Path> segments) throws IOException {
+            Map<Like, Boolean> changes = new LinkedHashMap<>();
+            for (Path segment : segments) {
+                ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+                long validLength = validLengthOf(segment);
+                if (validLength < records.limit()) {
+                    log.warn("В сегменте {} отброшены неподтверждённые записи ({} байт)", segment.getFileName(),
+                            records.limit() - validLength);
+                    records.limit((int) validLength);
+                }
+                while (records.remaining() >= RECORD_SIZE) {
+                    long userId = records.getLong();
+                    long filmId = records.getLong();
+                    changes.put(new Like(filmId, userId), records.get() != 0);
+                }
+                if (records.hasRemaining()) {
+                    log.warn("В сегменте {} отброшена неполная запись ({} байт)", segment.getFileName(),
+                            records.remaining());
+                }
+            }
+            return changes;
+        }
+
+        // segment-<номер>.log или помеченный segment-<номер>.log.<длина>; -1 - чужой файл
+        private static long sequenceOf(Path file) {
+            String name = file.getFileName().toString();
+            int end = name.indexOf(SUFFIX);
+            if (!name.startsWith(PREFIX) || end < 0) {
+                return -1;
+            }
+            try {
+                validLengthOf(file);
+                return Long.parseLong(name, PREFIX.length(), end, 10);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private static long validLengthOf(Path file) {
+            String name = file.getFileName().toString();
+            int end = name.indexOf(SUFFIX) + SUFFIX.length();
+            if (end == name.length()) {
+                return Long.MAX_VALUE;
+            }
+            if (name.charAt(end) != '.') {
+                throw new NumberFormatException(name);
+            }
+            return Long.parseLong(name, end + 1, name.length(), 10);
+        }
+
+        // Дописывает пакет записей и возвращает управление, когда пакет подтверждён
+        void write(ByteBuffer records) {
+            Batch batch;
+            writeLock.lock();
+            try {
+                if (closed) {
+                    throw new UncheckedIOException(new IOException("Журнал лайков закрыт"));
+                }
+                try {
+                    while (records.hasRemaining()) {
+                        channel.write(records);
+                    }
+                } catch (IOException e) {
+                    discard();
+                    throw new UncheckedIOException("Не удалось записать лайк в журнал", e);
+                }
+                size += records.limit();
+                if (!fsync) {
+                    committed = size;
+                    return;
+                }
+                batch = new Batch(size, generation);
+                unconfirmed.add(batch);
+            } finally {
+                writeLock.unlock();
+            }
+            sync(batch);
+        }
+
+        // Групповой fsync: один вызов подтверждает все пакеты, записанные до него
+        private void sync(Batch batch) {
+            syncLock.lock();
+            try {
+                long target;
+                FileChannel segment;
+                writeLock.lock();
+                try {
+                    if (batch.confirmed) {
+                        return;
+                    }
+                    if (batch.generation != generation) {
+                        throw discarded();
+                    }
+                    target = size;
+                    segment = channel;
+                } finally {
+                    writeLock.unlock();
+                }
+                IOException failure = null;
+                try {
+                    segment.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                }
+                writeLock.lock();
+                try {
+                    if (batch.generation != generation) {
+                        throw discarded();
+                    }
+                    if (failure != null) {
+                        discard();
+                        throw new UncheckedIOException("Не удалось сохранить журнал лайков на диск", failure);
+                    }
+                    committed = target;
+                    while (!unconfirmed.isEmpty() && unconfirmed.peek().end <= target) {
+                        unconfirmed.poll().confirmed = true;
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        // Вызывается под writeLock: отрезает всё неподтверждённое, включая оборванную запись
+        private void discard() {
+            generation++;
+            unconfirmed.clear();
+            try {
+                channel.truncate(committed);
+                size = committed;
+            } catch (IOException e) {
+                log.error("Не удалось обрезать сегмент журнала лайков {}", current.getFileName(), e);
+                poison();
+            }
+        }
+
+        // Закрывает сегмент с длиной подтверждённого начала в имени и продолжает запись в новый
+        private void poison() {
+            try {
+                channel.close();
+                Path poisoned = current.resolveSibling(current.getFileName() + "." + committed);
+                Files.move(current, poisoned);
+                sealed.add(poisoned);
+                sequence++;
+                open();
+                size = 0;
+                committed = 0;
+            } catch (IOException e) {
+                // Без отметки длины восстановление применило бы неподтверждённые записи: запись прекращается
+                closed = true;
+                log.error("Журнал лайков отключён до перезапуска: сегмент {} не удалось пометить",
+                        current.getFileName(), e);
+            }
+        }
+
+        private static UncheckedIOException discarded() {
+            return new UncheckedIOException(new IOException("Запись журнала лайков отменена после ошибки диска"));
+        }
+
+        // Вызывается под блокировкой записи буфера: незавершённых пакетов нет
+        void rotate() {
+            writeLock.lock();
+            try {
+                force();
+                closeChannel();
+                sealed.add(current);
+                sequence++;
+                openUnchecked();
+                size = 0;
+                committed = 0;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        // Все изменения уже в базе: текущий сегмент начинается заново
+        void truncate() {
+            deleteSealed();
+            writeLock.lock();
+            try {
+                if (channel.size() > 0) {
+                    channel.truncate(0);
+                }
+                size = 0;
+                committed = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось очистить журнал лайков", e);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void deleteSealed() {
+            for (Path segment : sealed) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Не удалось удалить сегмент журнала лайков", e);
+                }
+            }
+            sealed.clear();
+        }
+
+        void close() {
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                force();
+                closeChannel();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void force() {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось сохранить журнал лайков на диск", e);
+            }
+        }
+
+        private void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось закрыть журнал лайков", e);
+            }
+        }
+
+        private void open() throws IOException {
+            current = dir.resolve(PREFIX + sequence + SUFFIX);
+            channel = opener.open(current);
+        }
+
+        private void openUnchecked() {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось открыть новый сегмент журнала лайков", e);
+            }
+        }
+
+        private static final class Batch {
+            private final long end;
+            private final long generation;
+            private boolean confirmed;
+
+            Batch(long end, long generation) {
+                this.end = end;
+                this.generation = generation;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.SortedLongArrays;
+import ru.yandex.practicum.filmorate.repository.SparseCounter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Разреженная матрица пользователь x фильм по таблице likes, хранится в обе стороны отсортированными long[].
+// Рекомендации - user-based коллаборативная фильтрация: находим пользователей с наибольшим числом общих лайков
+// и ранжируем их фильмы по сумме пересечений, исключая уже лайкнутые.
+@Component
+public class LikesMatrix {
+    // Сколько самых похожих пользователей учитывается при подборе фильмов
+    private static final int NEIGHBOURS = 50;
+    // С этого числа лайков подсчёт пересечений делится между потоками общего ForkJoinPool
+    private static final int PARALLEL_OVERLAP_THRESHOLD = 32;
+
+    private final Map<Long, long[]> filmsByUserId = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> usersByFilmId = new ConcurrentHashMap<>();
+
+    public void reset(Map<Long, long[]> likedFilmsByUserId) {
+        filmsByUserId.clear();
+        usersByFilmId.clear();
+        Map<Long, Integer> likesPerFilm = new HashMap<>();
+        likedFilmsByUserId.forEach((userId, filmIds) -> {
+            filmsByUserId.put(userId, SortedLongArrays.sortedCopy(filmIds));
+            for (long filmId : filmIds) {
+                likesPerFilm.merge(filmId, 1, Integer::sum);
+            }
+        });
+        Map<Long, long[]> users = new HashMap<>(likesPerFilm.size() * 2);
+        Map<Long, Integer> filled = new HashMap<>(likesPerFilm.size() * 2);
+        likesPerFilm.forEach((filmId, likes) -> users.put(filmId, new long[likes]));
+        filmsByUserId.forEach((userId, filmIds) -> {
+            for (long filmId : filmIds) {
+                users.get(filmId)[filled.merge(filmId, 1, Integer::sum) - 1] = userId;
+            }
+        });
+        users.forEach((filmId, userIds) -> usersByFilmId.put(filmId, SortedLongArrays.sortedCopy(userIds)));
+    }
+
+    public void addLike(long userId, long filmId) {
+        filmsByUserId.compute(userId, (id, filmIds) ->
+                SortedLongArrays.insert(filmIds == null ? SortedLongArrays.EMPTY : filmIds, filmId));
+        usersByFilmId.compute(filmId, (id, userIds) ->
+                SortedLongArrays.insert(userIds == null ? SortedLongArrays.EMPTY : userIds, userId));
+    }
+
+    public void removeLike(long userId, long filmId) {
+        filmsByUserId.computeIfPresent(userId, (id, filmIds) -> SortedLongArrays.remove(filmIds, filmId));
+        usersByFilmId.computeIfPresent(filmId, (id, userIds) -> SortedLongArrays.remove(userIds, userId));
+    }
+
+    public boolean hasLike(long userId, long filmId) {
+        return SortedLongArrays.contains(filmsByUserId.getOrDefault(userId, SortedLongArrays.EMPTY), filmId);
+    }
+
+    public List<Long> recommend(long userId, int limit) {
+        long[] likedFilmIds = filmsByUserId.getOrDefault(userId, SortedLongArrays.EMPTY);
+        if (likedFilmIds.length == 0) {
+            return List.of();
+        }
+        SparseCounter overlaps = SparseCounter.countNeighbours(likedFilmIds,
+                filmId -> usersByFilmId.getOrDefault(filmId, SortedLongArrays.EMPTY), PARALLEL_OVERLAP_THRESHOLD);
+        List<SparseCounter.Entry> neighbours = overlaps.top(NEIGHBOURS, otherUserId -> otherUserId == userId);
+
+        int expansion = 0;
+        for (SparseCounter.Entry neighbour : neighbours) {
+            expansion += filmsByUserId.getOrDefault(neighbour.key(), SortedLongArrays.EMPTY).length;
+        }
+        SparseCounter scores = new SparseCounter(expansion);
+        for (SparseCounter.Entry neighbour : neighbours) {
+            for (long filmId : filmsByUserId.getOrDefault(neighbour.key(), SortedLongArrays.EMPTY)) {
+                scores.add(filmId, neighbour.count());
+            }
+        }
+        return scores.top(limit, filmId -> SortedLongArrays.contains(likedFilmIds, filmId)).stream()
+                .map(SparseCounter.Entry::key)
+                .toList();
+    }
+}
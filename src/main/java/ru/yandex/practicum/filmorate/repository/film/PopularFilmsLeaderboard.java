@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.repository.film;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+// Рейтинг фильмов по лайкам, разбитый на секции: весь каталог, каждый жанр, каждый год выхода и каждая пара
+// жанр + год. Фильм лежит во всех своих секциях, поэтому топ с фильтром читается с начала одной секции
+// за время, зависящее только от count
+@Component
+public class PopularFilmsLeaderboard {
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final Partition ALL = new Partition(null, null);
+    private static final Classification UNCLASSIFIED = new Classification(Set.of(), null);
+
+    private final Map<Partition, ConcurrentSkipListSet<Entry>> rankings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = ranking(ALL);
+    private final Map<Long, Ranked> films = new ConcurrentHashMap<>();
+
+    public void reset(Map<Long, Long> likesByFilmId) {
+        reset(likesByFilmId, Map.of());
+    }
+
+    public void reset(Map<Long, Long> likesByFilmId, Map<Long, Classification> classifications) {
+        films.clear();
+        rankings.values().forEach(Set::clear);
+        likesByFilmId.forEach((filmId, likes) -> {
+            Ranked ranked = Ranked.of(new Entry(filmId, likes), classifications.getOrDefault(filmId, UNCLASSIFIED));
+            films.put(filmId, ranked);
+            ranked.partitions().forEach(partition -> ranking(partition).add(ranked.entry()));
+        });
+    }
+
+    public void addFilm(long filmId) {
+        addFilm(filmId, List.of(), null);
+    }
+
+    public void addFilm(long filmId, Collection<Integer> genreIds, Integer year) {
+        films.computeIfAbsent(filmId, id -> {
+            Ranked ranked = Ranked.of(new Entry(id, 0), new Classification(Set.copyOf(genreIds), year));
+            ranked.partitions().forEach(partition -> ranking(partition).add(ranked.entry()));
+            return ranked;
+        });
+    }
+
+    // Переносит фильм в секции новых жанров и года; genreIds == null оставляет жанры прежними.
+    // Возвращает прежнюю классификацию для отката через restore
+    public Classification classify(long filmId, Collection<Integer> genreIds, Integer year) {
+        Classification[] previous = new Classification[1];
+        films.computeIfPresent(filmId, (id, old) -> {
+            previous[0] = old.classification();
+            Set<Integer> genres = genreIds == null ? old.classification().genreIds() : Set.copyOf(genreIds);
+            Ranked updated = Ranked.of(old.entry(), new Classification(genres, year));
+            move(old, updated);
+            return updated;
+        });
+        return previous[0];
+    }
+
+    public void restore(long filmId, Classification classification) {
+        if (classification != null) {
+            classify(filmId, classification.genreIds(), classification.year());
+        }
+    }
+
+    public void removeFilm(long filmId) {
+        films.computeIfPresent(filmId, (id, ranked) -> {
+            ranked.partitions().forEach(partition -> ranking(partition).remove(ranked.entry()));
+            return null;
+        });
+    }
+
+    public void changeLikes(long filmId, long delta) {
+        films.compute(filmId, (id, old) -> {
+            long likes = old == null ? delta : old.entry().likes() + delta;
+            Entry entry = new Entry(id, Math.max(likes, 0));
+            if (old != null && entry.equals(old.entry())) {
+                return old;
+            }
+            Ranked updated = Ranked.of(entry, old == null ? UNCLASSIFIED : old.classification());
+            move(old, updated);
+            return updated;
+        });
+    }
+
+    public long getLikes(long filmId) {
+        Ranked ranked = films.get(filmId);
+        return ranked == null ? 0 : ranked.entry().likes();
+    }
+
+    public List<Long> top(int count) {
+        return top(count, filmId -> true);
+    }
+
+    // Первые count фильмов рейтинга, прошедших фильтр
+    public List<Long> top(int count, LongPredicate filter) {
+        return top(ranking, count, filter);
+    }
+
+    // Топ секции: null в genreId или year означает любой жанр или год
+    public List<Long> top(int count, Integer genreId, Integer year) {
+        ConcurrentSkipListSet<Entry> partition = rankings.get(new Partition(genreId, year));
+        return partition == null ? List.of() : top(partition, count, filmId -> true);
+    }
+
+    public int size() {
+        return films.size();
+    }
+
+    private static List<Long> top(ConcurrentSkipListSet<Entry> ranking, int count, LongPredicate filter) {
+        List<Long> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : ranking) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            if (filter.test(entry.filmId()) && seen.add(entry.filmId())) {
+                filmIds.add(entry.filmId());
+            }
+        }
+        return filmIds;
+    }
+
+    private ConcurrentSkipListSet<Entry> ranking(Partition partition) {
+        return rankings.computeIfAbsent(partition, key -> new ConcurrentSkipListSet<>(BY_LIKES_DESC));
+    }
+
+    // Сначала добавляем новые позиции, чтобы конкурентное чтение не потеряло фильм
+    private void move(Ranked old, Ranked updated) {
+        updated.partitions().forEach(partition -> ranking(partition).add(updated.entry()));
+        if (old == null) {
+            return;
+        }
+        boolean sameEntry = old.entry().equals(updated.entry());
+        for (Partition partition : old.partitions()) {
+            if (!sameEntry || !updated.partitions().contains(partition)) {
+                ranking(partition).remove(old.entry());
+            }
+        }
+    }
+
+    public record Classification(Set<Integer> genreIds, Integer year) {
+    }
+
+    record Entry(long filmId, long likes) {
+    }
+
+    private record Partition(Integer genreId, Integer year) {
+    }
+
+    private record Ranked(Entry entry, Classification classification, List<Partition> partitions) {
+        static Ranked of(Entry entry, Classification classification) {
+            List<Partition> partitions = new ArrayList<>(2 + 2 * classification.genreIds().size());
+            partitions.add(ALL);
+            if (classification.year() != null) {
+                partitions.add(new Partition(null, classification.year()));
+            }
+            for (Integer genreId : classification.genreIds()) {
+                partitions.add(new Partition(genreId, null));
+                if (classification.year() != null) {
+                    partitions.add(new Partition(genreId, classification.year()));
+                }
+            }
+            return new Ranked(entry, classification, partitions);
+        }
+    }
+}
@@ -1,58 +1,42 @@
 package ru.yandex.practicum.filmorate.repository.genre;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
 
 import java.util.List;
 
+// Справочник жанров отдаётся из памяти; в БД остаётся только связь фильмов с жанрами
 @Repository
+@Timed(value = MetricsConfig.REPOSITORY_TIMER, histogram = true)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class GenreRepository implements GenreRepositoryInterface {
-    private static final String GET_ALL_SQL = """
-            SELECT
-                genre_id,
-                name
-            FROM genres
-            ORDER BY genre_id""";
-    private static final String GET_BY_ID_SQL = """
-            SELECT
-                genre_id,
-                name
-                FROM genres
-                WHERE genre_id = :id""";
     private static final String FIND_BY_FILM_ID = """
-            SELECT
-                g.genre_id,
-                g.name
-            FROM genres g
-            JOIN film_genres fg ON g.genre_id = fg.genre_id
-            WHERE fg.film_id = :filmId
-            ORDER BY g.genre_id
+            SELECT genre_id
+            FROM film_genres
+            WHERE film_id = :filmId
+            ORDER BY genre_id
             """;
 
     private final NamedParameterJdbcOperations jdbc;
-    private final GenreRowMapper mapper;
+    private final ReferenceDataRegistry referenceData;
 
     @Override
     public List<Genre> getAllGenres() {
-        return jdbc.query(GET_ALL_SQL, mapper);
+        return referenceData.getGenres();
     }
 
     @Override
     public Genre getById(int id) {
-        MapSqlParameterSource params = new MapSqlParameterSource("id", id);
-        try {
-            return jdbc.queryForObject(GET_BY_ID_SQL, params, mapper);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Жанр не найден");
-        }
+        return referenceData.findGenre(id)
+                .orElseThrow(() -> new NotFoundException("Жанр не найден"));
     }
 
     @Override
@@ -60,7 +44,7 @@ public class GenreRepository implements GenreRepositoryInterface {
         return jdbc.query(
                 FIND_BY_FILM_ID,
                 new MapSqlParameterSource("filmId", filmId),
-                new GenreRowMapper()
+                (rs, rowNum) -> referenceData.genre(rs.getInt("genre_id"))
         );
     }
-}
\ No newline at end of file
+}
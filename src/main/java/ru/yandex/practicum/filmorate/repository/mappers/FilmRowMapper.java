@@ -4,8 +4,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -15,28 +14,21 @@ import java.util.ArrayList;
 @Component
 @AllArgsConstructor
 public class FilmRowMapper implements RowMapper<Film> {
+    private final ReferenceDataRegistry referenceData;
 
+    // Жанры в строку фильма не входят: их догружает FilmRepository отдельным запросом.
+    // Рейтинг берётся из справочника по mpa_id, без JOIN с таблицей mpa
     @Override
     public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
-
-        Film film = Film.builder()
+        int mpaId = rs.getInt("mpa_id");
+        return Film.builder()
                 .id(rs.getLong("film_id"))
                 .name(rs.getString("name"))
                 .description(rs.getString("description"))
                 .releaseDate(rs.getObject("release_date", LocalDate.class))
                 .duration(rs.getInt("duration"))
-                .mpa(new Mpa(
-                        rs.getInt("mpa_id"),
-                        rs.getString("mpa_name")
-                ))
+                .mpa(rs.wasNull() ? null : referenceData.mpa(mpaId))
                 .genres(new ArrayList<>())
                 .build();
-        if (rs.getObject("genre_id") != null) {
-            film.getGenres().add(new Genre(
-                    rs.getInt("genre_id"),
-                    rs.getString("genre_name")
-            ));
-        }
-        return film;
     }
-}
\ No newline at end of file
+}
@@ -1,39 +1,31 @@
 package ru.yandex.practicum.filmorate.repository.mpa;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.repository.mappers.MpaRowMapper;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
 
 import java.util.List;
 
+// Рейтинги MPA не меняются во время работы приложения и отдаются из справочника в памяти
 @Repository
+@Timed(value = MetricsConfig.REPOSITORY_TIMER, histogram = true)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class MpaRepository implements MpaRepositoryInterface {
-    private static final String GET_ALL_SQL = "SELECT mpa_id, name FROM mpa ORDER BY mpa_id";
-    private static final String GET_BY_ID_SQL = "SELECT mpa_id, name FROM mpa WHERE mpa_id = :id";
-
-    private final NamedParameterJdbcOperations jdbc;
-    private final MpaRowMapper mapper;
-
+    private final ReferenceDataRegistry referenceData;
 
     @Override
     public List<Mpa> getAll() {
-        return jdbc.query(GET_ALL_SQL, mapper);
+        return referenceData.getMpaRatings();
     }
 
     @Override
     public Mpa getById(int id) {
-        MapSqlParameterSource params = new MapSqlParameterSource("id", id);
-        try {
-            return jdbc.queryForObject(GET_BY_ID_SQL, params, mapper);
-        } catch (EmptyResultDataAccessException e) {
-            throw new NotFoundException("Рейтинг не найден");
-        }
+        return referenceData.findMpa(id)
+                .orElseThrow(() -> new NotFoundException("Рейтинг не найден"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Фильтр Блума перед проверкой email: отрицательный ответ гарантирует, что email свободен, без запроса в БД.
+// Удалений фильтр не поддерживает, поэтому сменённые email дают лишь ложноположительные ответы.
+@Component
+public class EmailBloomFilter {
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public EmailBloomFilter(@Value("${filmorate.users.email-bloom-filter.enabled:false}") boolean enabled,
+                            @Value("${filmorate.users.email-bloom-filter.expected-insertions:1000000}")
+                            long expectedInsertions,
+                            @Value("${filmorate.users.email-bloom-filter.false-positive-rate:0.01}")
+                            double falsePositiveRate) {
+        this.enabled = enabled;
+        long optimalBits = enabled ? optimalBitCount(expectedInsertions, falsePositiveRate) : Long.SIZE;
+        this.bits = new AtomicLongArray((int) ((optimalBits + Long.SIZE - 1) / Long.SIZE));
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashCount = optimalHashCount(expectedInsertions, bitCount);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void put(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        long hash1 = hash(email);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String email) {
+        if (!enabled || email == null) {
+            return true;
+        }
+        long hash1 = hash(email);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long optimalBitCount(long expectedInsertions, double falsePositiveRate) {
+        double bitsNeeded = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        return Math.max(Long.SIZE, (long) Math.ceil(bitsNeeded));
+    }
+
+    private static int optimalHashCount(long expectedInsertions, long bitCount) {
+        return Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedInsertions, 1) * Math.log(2)));
+    }
+
+    // FNV-1a по байтам UTF-8
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Финализатор SplitMix64 даёт второй независимый хэш для двойного хэширования
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.repository.user;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.SortedLongArrays;
+import ru.yandex.practicum.filmorate.repository.SparseCounter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Списки друзей в памяти: у каждого пользователя отсортированный long[], общие друзья ищутся слиянием двух массивов.
+// Массивы не меняются на месте, а заменяются копией, поэтому читатели без блокировок видят целостный снимок.
+@Component
+public class FriendshipGraph {
+    // С этого числа друзей обход друзей друзей делится между потоками общего ForkJoinPool
+    private static final int PARALLEL_SUGGESTIONS_THRESHOLD = 512;
+
+    private final Map<Long, long[]> friendsByUserId = new ConcurrentHashMap<>();
+
+    public void reset(Map<Long, long[]> friends) {
+        friendsByUserId.clear();
+        friends.forEach((userId, friendIds) -> friendsByUserId.put(userId, SortedLongArrays.sortedCopy(friendIds)));
+    }
+
+    public void addFriend(long userId, long friendId) {
+        friendsByUserId.compute(userId, (id, friendIds) ->
+                SortedLongArrays.insert(friendIds == null ? SortedLongArrays.EMPTY : friendIds, friendId));
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        friendsByUserId.computeIfPresent(userId, (id, friendIds) -> SortedLongArrays.remove(friendIds, friendId));
+    }
+
+    public long[] friendsOf(long userId) {
+        return friendsOrEmpty(userId).clone();
+    }
+
+    public long[] commonFriends(long userId, long otherUserId) {
+        return SortedLongArrays.intersect(friendsOrEmpty(userId), friendsOrEmpty(otherUserId));
+    }
+
+    // Кандидаты - друзья друзей, кроме самого пользователя и его друзей; в куче держатся только лучшие limit
+    public List<Suggestion> suggestions(long userId, int limit) {
+        long[] friendIds = friendsOrEmpty(userId);
+        SparseCounter mutualFriends = SparseCounter.countNeighbours(friendIds, this::friendsOrEmpty,
+                PARALLEL_SUGGESTIONS_THRESHOLD);
+        // Уже существующие друзья отсекаются здесь, по одному разу на кандидата, а не на каждое ребро обхода
+        return mutualFriends.top(limit, candidateId -> candidateId == userId
+                        || SortedLongArrays.contains(friendIds, candidateId)).stream()
+                .map(entry -> new Suggestion(entry.key(), (int) entry.count()))
+                .toList();
+    }
+
+    private long[] friendsOrEmpty(long userId) {
+        return friendsByUserId.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    public record Suggestion(long userId, int mutualFriends) {
+    }
+}
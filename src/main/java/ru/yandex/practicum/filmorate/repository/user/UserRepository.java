@@ -1,24 +1,41 @@
 package ru.yandex.practicum.filmorate.repository.user;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.MetricsConfig;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.TransactionHooks;
 import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
 
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
+@Timed(value = MetricsConfig.REPOSITORY_TIMER, histogram = true)
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class UserRepository implements UserRepositoryInterface {
     private static final String GET_USER_BY_ID = """
@@ -49,21 +66,40 @@ public class UserRepository implements UserRepositoryInterface {
                 name,
                 birthday
             FROM users""";
+    private static final String GET_USERS_PAGE = """
+            SELECT
+                user_id,
+                email,
+                login,
+                name,
+                birthday
+            FROM users
+            WHERE user_id > :after
+            ORDER BY user_id
+            LIMIT :limit""";
+    private static final String EXISTS_BY_EMAIL = """
+            SELECT EXISTS (
+                SELECT 1 FROM users WHERE email = :email
+            )""";
+    private static final String GET_ALL_EMAILS = "SELECT email FROM users";
     private static final String ADD_FRIEND = """
             INSERT INTO friends(user_id, friend_id)
             VALUES (:userId, :friendId)
             """;
-    private static final String GET_COMMON_FRIENDS = """
+    private static final String GET_USERS_BY_IDS = """
             SELECT
-                u.user_id,
-                u.email,
-                u.login,
-                u.name,
-                u.birthday
-            FROM users u
-            JOIN friends f1 ON u.user_id = f1.friend_id
-            JOIN friends f2 ON u.user_id = f2.friend_id
-            WHERE f1.user_id = :userId AND f2.user_id = :friendId
+                user_id,
+                email,
+                login,
+                name,
+                birthday
+            FROM users
+            WHERE user_id IN (:ids)
+            ORDER BY user_id
+            """;
+    private static final String GET_ALL_FRIENDSHIPS = """
+            SELECT user_id, friend_id
+            FROM friends
             """;
     private static final String GET_FRIENDS_LIST = """
             SELECT
@@ -80,10 +116,40 @@ public class UserRepository implements UserRepositoryInterface {
             DELETE FROM friends
             WHERE user_id = :userId AND friend_id = :friendId""";
 
+    private static final String GET_EXISTING_IDS = """
+            SELECT user_id
+            FROM users
+            WHERE user_id IN (:ids)""";
+
     private static final String USER_NOT_FOUND = "Пользователь с id = %d не найден";
 
     private final NamedParameterJdbcOperations jdbc;
     private final UserRowMapper mapper;
+    private final EmailBloomFilter emailFilter;
+    private final FriendshipGraph friendshipGraph;
+    private final EntityVersions versions;
+
+    @PostConstruct
+    void loadEmailFilter() {
+        if (emailFilter.isEnabled()) {
+            jdbc.query(GET_ALL_EMAILS, rs -> {
+                emailFilter.put(rs.getString("email"));
+            });
+        }
+    }
+
+    @PostConstruct
+    void loadFriendshipGraph() {
+        Map<Long, List<Long>> friendIdsByUserId = new HashMap<>();
+        jdbc.query(GET_ALL_FRIENDSHIPS, rs -> {
+            friendIdsByUserId.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>())
+                    .add(rs.getLong("friend_id"));
+        });
+        friendshipGraph.reset(friendIdsByUserId.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stream()
+                        .mapToLong(Long::longValue)
+                        .toArray())));
+    }
 
     @Override
     public User saveUser(User user) {
@@ -103,6 +169,8 @@ public class UserRepository implements UserRepositoryInterface {
         }
         Long id = generatedId.longValue();
         user.setId(id);
+        emailFilter.put(user.getEmail());
+        versions.userChanged();
 
         return getUserById(id).orElseThrow(() ->
                 new InternalServerException("Пользователь создан, но не найден"));
@@ -123,16 +191,28 @@ public class UserRepository implements UserRepositoryInterface {
         if (updatedRows == 0) {
             throw new NotFoundException(String.format(USER_NOT_FOUND, user.getId()));
         }
+        emailFilter.put(user.getEmail());
+        versions.userChanged();
         return getUserById(user.getId())
                 .orElseThrow(() ->
                         new NotFoundException(String.format("%s %d после обновления", USER_NOT_FOUND, user.getId())));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<User> getAllUsers() {
         return jdbc.query(GET_ALL_USERS, mapper);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<User> getUsersPage(long after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", after)
+                .addValue("limit", limit);
+        return jdbc.query(GET_USERS_PAGE, params, mapper);
+    }
+
     @Override
     public Optional<User> getUserById(Long id) {
         MapSqlParameterSource params = new MapSqlParameterSource();
@@ -145,12 +225,45 @@ public class UserRepository implements UserRepositoryInterface {
         }
     }
 
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        return loadUsersInOrder(ids);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
+        Boolean exists = jdbc.queryForObject(EXISTS_BY_EMAIL, new MapSqlParameterSource("email", email), Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    @Override
+    public List<Long> findMissingIds(List<Long> ids) {
+        Set<Long> existingIds = new HashSet<>(jdbc.queryForList(GET_EXISTING_IDS,
+                new MapSqlParameterSource("ids", ids), Long.class));
+        return ids.stream()
+                .filter(id -> !existingIds.contains(id))
+                .distinct()
+                .toList();
+    }
+
+    @Transactional
     @Override
     public void addFriend(Long userId, Long friendId) {
         try {
             jdbc.update(ADD_FRIEND, new MapSqlParameterSource()
                     .addValue("userId", userId, Types.BIGINT)
                     .addValue("friendId", friendId, Types.BIGINT));
+            friendshipGraph.addFriend(userId, friendId);
+            TransactionHooks.onRollback(() -> friendshipGraph.removeFriend(userId, friendId));
+            versions.friendsChanged(userId);
+        } catch (DuplicateKeyException e) {
+            throw new InternalServerException("Не удалось добавить друга");
+        } catch (DataIntegrityViolationException e) {
+            requireUsersExist(userId, friendId);
+            throw new InternalServerException("Не удалось добавить друга");
         } catch (DataAccessException e) {
             throw new InternalServerException("Не удалось добавить друга");
         }
@@ -159,22 +272,64 @@ public class UserRepository implements UserRepositoryInterface {
     @Transactional
     @Override
     public void deleteFriend(Long userId, Long friendId) {
-        jdbc.update(DELETE_FRIEND, new MapSqlParameterSource()
+        int deletedRows = jdbc.update(DELETE_FRIEND, new MapSqlParameterSource()
                 .addValue("userId", userId, Types.BIGINT)
                 .addValue("friendId", friendId, Types.BIGINT));
+        if (deletedRows == 0) {
+            requireUsersExist(userId, friendId);
+            return;
+        }
+        friendshipGraph.removeFriend(userId, friendId);
+        TransactionHooks.onRollback(() -> friendshipGraph.addFriend(userId, friendId));
+        versions.friendsChanged(userId);
     }
 
+    // Пересечение считается по графу в памяти, из базы читаются только строки найденных пользователей
     @Override
     public List<User> getCommonFriends(Long userId, Long friendId) {
-        MapSqlParameterSource params = new MapSqlParameterSource()
-                .addValue("userId", userId)
-                .addValue("friendId", friendId);
-
-        return jdbc.query(GET_COMMON_FRIENDS, params, mapper);
+        long[] commonFriendIds = friendshipGraph.commonFriends(userId, friendId);
+        if (commonFriendIds.length == 0) {
+            return List.of();
+        }
+        return jdbc.query(GET_USERS_BY_IDS, new MapSqlParameterSource("ids", Arrays.stream(commonFriendIds)
+                .boxed()
+                .toList()), mapper);
     }
 
     @Override
     public List<User> getFriendsList(Long userId) {
         return jdbc.query(GET_FRIENDS_LIST, new MapSqlParameterSource("userId", userId), mapper);
     }
+
+    // Рейтинг строится по графу в памяти, строки пользователей читаются одним запросом и выстраиваются в его порядке
+    @Override
+    public List<User> getFriendSuggestions(Long userId, int limit) {
+        List<Long> suggestedIds = friendshipGraph.suggestions(userId, limit).stream()
+                .map(FriendshipGraph.Suggestion::userId)
+                .toList();
+        return loadUsersInOrder(suggestedIds);
+    }
+
+    // Пользователи по списку id одним запросом, в порядке списка
+    private List<User> loadUsersInOrder(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> usersById = jdbc.query(GET_USERS_BY_IDS, new MapSqlParameterSource("ids", userIds), mapper)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return userIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Вызывается, только когда запись ничего не изменила: отличает отсутствующего пользователя от пустого результата
+    private void requireUsersExist(Long... ids) {
+        findMissingIds(List.of(ids)).stream()
+                .findFirst()
+                .ifPresent(id -> {
+                    throw new NotFoundException(String.format(USER_NOT_FOUND, id));
+                });
+    }
 }
\ No newline at end of file
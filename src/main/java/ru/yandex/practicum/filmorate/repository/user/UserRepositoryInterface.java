@@ -13,8 +13,16 @@ public interface UserRepositoryInterface {
 
     List<User> getAllUsers();
 
+    List<User> getUsersPage(long after, int limit);
+
     Optional<User> getUserById(Long id);
 
+    List<User> getUsersByIds(List<Long> ids);
+
+    boolean existsByEmail(String email);
+
+    List<Long> findMissingIds(List<Long> ids);
+
     void addFriend(Long userId, Long friendId);
 
     void deleteFriend(Long userId, Long friendId);
@@ -22,4 +30,6 @@ public interface UserRepositoryInterface {
     List<User> getCommonFriends(Long userId, Long friendId);
 
     List<User> getFriendsList(Long userId);
+
+    List<User> getFriendSuggestions(Long userId, int limit);
 }
\ No newline at end of file
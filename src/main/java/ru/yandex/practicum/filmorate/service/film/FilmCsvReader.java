@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Потоковое чтение фильмов из CSV (RFC 4180) с заголовком. Столбцы: name, description, releaseDate,
+// duration, mpaId, genreIds (id через ';'); обязательны name, releaseDate и duration, порядок любой,
+// незнакомые столбцы пропускаются. Запись без mpaId читается, но импорт её отклоняет
+public class FilmCsvReader implements Closeable {
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "releaseDate", "duration");
+    private static final Pattern GENRE_SEPARATOR = Pattern.compile("[;\\s]+");
+
+    private final Reader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    public FilmCsvReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = nextRecord();
+        if (header == null) {
+            throw new ConditionsNotMetException("CSV-файл пуст");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip(), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new ConditionsNotMetException("В заголовке CSV нет столбца " + column);
+            }
+        }
+    }
+
+    // Поля следующей непустой записи или null в конце файла. Кавычки экранируют запятые и переводы строк,
+    // "" внутри кавычек - сама кавычка
+    public List<String> nextRecord() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isEmpty());
+        return fields;
+    }
+
+    public Film toFilm(List<String> fields) {
+        Film film = new Film();
+        film.setName(field(fields, "name"));
+        film.setDescription(field(fields, "description"));
+        String releaseDate = field(fields, "releaseDate");
+        try {
+            film.setReleaseDate(releaseDate == null ? null : LocalDate.parse(releaseDate));
+        } catch (DateTimeParseException e) {
+            throw new ConditionsNotMetException("Некорректная дата выхода: " + releaseDate);
+        }
+        film.setDuration(number(fields, "duration"));
+        String mpaId = field(fields, "mpaId");
+        if (mpaId != null) {
+            film.setMpa(new Mpa(number(fields, "mpaId"), null));
+        }
+        String genreIds = field(fields, "genreIds");
+        if (genreIds != null) {
+            List<Genre> genres = new ArrayList<>();
+            for (String genreId : GENRE_SEPARATOR.split(genreIds)) {
+                genres.add(new Genre(parseNumber("genreIds", genreId), null));
+            }
+            film.setGenres(genres);
+        }
+        return film;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Значение столбца записи; null - столбца нет или поле пустое
+    String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    private int number(List<String> fields, String column) {
+        String value = field(fields, column);
+        return value == null ? 0 : parseNumber(column, value);
+    }
+
+    private static int parseNumber(String column, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ConditionsNotMetException("Некорректное значение " + column + ": " + value);
+        }
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Незакрытая кавычка в CSV");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Импорт каталога из файла при запуске: --filmorate.import.file=films.csv; файлы не .csv читаются как JSON
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.import.file")
+public class FilmImportJob implements ApplicationRunner {
+    private final FilmImportService filmImportService;
+
+    @Value("${filmorate.import.file}")
+    private String file;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path path = Path.of(file);
+        long start = System.nanoTime();
+        FilmImportResultDto result;
+        try (InputStream input = Files.newInputStream(path)) {
+            result = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                    ? filmImportService.importCsv(input)
+                    : filmImportService.importJson(input);
+        }
+        long millis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        log.info("Импорт из {} завершён за {} мс: сохранено {} фильмов ({} в секунду), отклонено {}",
+                path, millis, result.getImported(), result.getImported() * 1000L / millis, result.getRejected());
+        for (FilmImportErrorDto error : result.getErrors()) {
+            log.warn("Запись {}: {}", error.getRecord(), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+
+import java.io.InputStream;
+
+public interface FilmImportService {
+    FilmImportResultDto importJson(InputStream input);
+
+    FilmImportResultDto importCsv(InputStream input);
+}
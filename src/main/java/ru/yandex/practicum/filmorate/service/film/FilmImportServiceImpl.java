@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.yandex.practicum.filmorate.dto.FilmImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepositoryInterface;
+import ru.yandex.practicum.filmorate.service.validation.ValidationService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Импорт каталога без загрузки файла в память: записи разбираются по одной, проверяются по справочникам
+// в памяти и сохраняются пачками, каждая в своей транзакции. Ошибочная запись не мешает остальным
+@Slf4j
+@Service
+public class FilmImportServiceImpl implements FilmImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Film.getMpa() подставляет G вместо пустого рейтинга, поэтому его наличие проверяется по исходной записи
+    private static final String MPA_REQUIRED = "Рейтинг MPA должен быть указан";
+
+    private final FilmRepositoryInterface filmRepository;
+    private final ValidationService validationService;
+    private final ReferenceDataRegistry referenceData;
+    private final ObjectMapper objectMapper;
+    private final TransactionOperations transactions;
+    private final int chunkSize;
+
+    public FilmImportServiceImpl(FilmRepositoryInterface filmRepository,
+                                 ValidationService validationService,
+                                 ReferenceDataRegistry referenceData,
+                                 ObjectMapper objectMapper,
+                                 TransactionOperations transactions,
+                                 @Value("${filmorate.import.chunk-size:5000}") int chunkSize) {
+        this.filmRepository = filmRepository;
+        this.validationService = validationService;
+        this.referenceData = referenceData;
+        this.objectMapper = objectMapper;
+        this.transactions = transactions;
+        this.chunkSize = chunkSize;
+    }
+
+    // Ожидается JSON-массив фильмов в формате POST /films
+    @Override
+    public FilmImportResultDto importJson(InputStream input) {
+        Importer importer = new Importer();
+        int record = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ConditionsNotMetException("Ожидается JSON-массив фильмов");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = parser.readValueAsTree();
+                record++;
+                if (!node.hasNonNull("mpa")) {
+                    importer.reject(record, MPA_REQUIRED);
+                    continue;
+                }
+                Film film;
+                try {
+                    film = objectMapper.treeToValue(node, Film.class);
+                } catch (JsonProcessingException e) {
+                    importer.reject(record, "Некорректная запись: " + e.getOriginalMessage());
+                    continue;
+                }
+                importer.add(record, film);
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                importer.stop(record + 1, "Элемент массива не является объектом");
+            }
+        } catch (IOException e) {
+            importer.stop(record + 1, "Ошибка разбора JSON: " + e.getMessage());
+        }
+        return importer.finish();
+    }
+
+    @Override
+    public FilmImportResultDto importCsv(InputStream input) {
+        Importer importer = new Importer();
+        int record = 0;
+        try (FilmCsvReader csv = new FilmCsvReader(new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE))) {
+            for (List<String> fields = csv.nextRecord(); fields != null; fields = csv.nextRecord()) {
+                record++;
+                Film film;
+                try {
+                    film = csv.toFilm(fields);
+                } catch (ConditionsNotMetException e) {
+                    importer.reject(record, e.getMessage());
+                    continue;
+                }
+                if (csv.field(fields, "mpaId") == null) {
+                    importer.reject(record, MPA_REQUIRED);
+                    continue;
+                }
+                importer.add(record, film);
+            }
+        } catch (IOException e) {
+            importer.stop(record + 1, "Ошибка разбора CSV: " + e.getMessage());
+        }
+        return importer.finish();
+    }
+
+    // Накапливает проверенные фильмы до размера пачки и считает результат
+    private class Importer {
+        private final List<Film> chunk = new ArrayList<>(chunkSize);
+        private final List<Integer> chunkRecords = new ArrayList<>(chunkSize);
+        private final List<FilmImportErrorDto> errors = new ArrayList<>();
+        private int imported;
+        private int rejected;
+
+        void add(int record, Film film) {
+            try {
+                validationService.validateCreate(film);
+                validateReferences(film);
+            } catch (ConditionsNotMetException e) {
+                reject(record, e.getMessage());
+                return;
+            }
+            chunk.add(film);
+            chunkRecords.add(record);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(int record, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new FilmImportErrorDto(record, message));
+            }
+        }
+
+        // Поток дальше не читается, но уже разобранные записи сохраняются
+        void stop(int record, String message) {
+            log.warn("Импорт фильмов остановлен на записи {}: {}", record, message);
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new FilmImportErrorDto(record, "Импорт остановлен: " + message));
+            }
+        }
+
+        FilmImportResultDto finish() {
+            flush();
+            log.info("Импорт фильмов: сохранено {}, отклонено {}", imported, rejected);
+            return new FilmImportResultDto(imported, rejected, errors);
+        }
+
+        // Пачка сохраняется целиком или не сохраняется: при ошибке базы отклоняются все её записи
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactions.executeWithoutResult(status -> filmRepository.saveFilms(chunk));
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось сохранить пачку фильмов с записи {}", chunkRecords.get(0), e);
+                chunkRecords.forEach(record -> reject(record, "Пачка не сохранена: " + e.getMessage()));
+            }
+            chunk.clear();
+            chunkRecords.clear();
+        }
+    }
+
+    private void validateReferences(Film film) {
+        int mpaId = film.getMpa().getId();
+        if (referenceData.mpa(mpaId) == null) {
+            throw new ConditionsNotMetException("Рейтинг MPA с id=" + mpaId + " не найден");
+        }
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                if (genre == null || referenceData.genre(genre.getId()) == null) {
+                    throw new ConditionsNotMetException("Жанр " + (genre == null ? null : genre.getId())
+                            + " не найден");
+                }
+            }
+        }
+    }
+}
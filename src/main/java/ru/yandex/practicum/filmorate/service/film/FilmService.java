@@ -1,9 +1,14 @@
 package ru.yandex.practicum.filmorate.service.film;
 
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResultDto;
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmService {
     FilmDto saveFilm(Film film);
@@ -14,9 +19,21 @@ public interface FilmService {
 
     void removeLike(Long userId, Long filmId);
 
-    List<FilmDto> getTheMostPopularFilms(Integer count);
+    List<LikeOperationResultDto> applyLikes(List<LikeOperation> operations);
+
+    List<FilmDto> getTheMostPopularFilms(Integer count, Integer genreId, Integer year);
+
+    List<FilmDto> getRecommendations(Long userId, Integer limit);
+
+    List<FilmDto> searchFilms(String query, Integer limit);
 
     FilmDto getFilmById(Long filmId);
 
+    MultiGetDto<FilmDto> getFilmsByIds(List<Long> ids);
+
     List<FilmDto> getAllFilms();
+
+    PageDto<FilmDto> getFilmsPage(Long after, Integer limit);
+
+    int exportFilms(Consumer<FilmDto> consumer);
 }
\ No newline at end of file
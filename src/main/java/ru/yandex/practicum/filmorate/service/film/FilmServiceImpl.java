@@ -3,24 +3,41 @@ package ru.yandex.practicum.filmorate.service.film;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.LikeOperationResultDto;
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepositoryInterface;
 import ru.yandex.practicum.filmorate.repository.user.UserRepositoryInterface;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FilmServiceImpl implements FilmService {
     private final FilmRepositoryInterface filmRepository;
-    private final UserRepositoryInterface userRepository;
     private final FilmMapper mapper;
+    private final UserRepositoryInterface userRepository;
     private static final String FILM_NOT_FOUND = "Фильм с id = %d не найден";
     private static final String USER_NOT_FOUND = "Пользователь с id = %d не найден";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_LIKE_OPERATIONS = 10000;
+    private static final int LIKE_OPERATIONS_CHUNK_SIZE = 500;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_IDS = 100;
+    private static final int MAX_POPULAR_FILMS = 1000;
 
     @Override
     public FilmDto saveFilm(Film film) {
@@ -38,25 +55,85 @@ public class FilmServiceImpl implements FilmService {
 
     @Override
     public void addLike(Long userId, Long filmId) {
-        userRepository.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, userId)));
-        filmRepository.getFilmById(filmId)
-                .orElseThrow(() -> new NotFoundException(String.format(FILM_NOT_FOUND, filmId)));
         filmRepository.addLike(userId, filmId);
     }
 
     @Override
     public void removeLike(Long userId, Long filmId) {
-        userRepository.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, userId)));
-        filmRepository.getFilmById(filmId)
-                .orElseThrow(() -> new NotFoundException(String.format(FILM_NOT_FOUND, filmId)));
         filmRepository.removeLike(userId, filmId);
     }
 
+    // Каждая пачка применяется отдельной транзакцией, чтобы большой пакет не держал блокировки до конца
+    @Override
+    public List<LikeOperationResultDto> applyLikes(List<LikeOperation> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_LIKE_OPERATIONS) {
+            throw new ConditionsNotMetException("Пакет должен содержать от 1 до " + MAX_LIKE_OPERATIONS + " операций");
+        }
+        LikeOperationStatus[] statuses = new LikeOperationStatus[operations.size()];
+        List<Integer> validPositions = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (operation == null || operation.getUserId() == null || operation.getFilmId() == null
+                    || operation.getOp() == null) {
+                statuses[i] = LikeOperationStatus.INVALID;
+            } else {
+                validPositions.add(i);
+            }
+        }
+        for (int from = 0; from < validPositions.size(); from += LIKE_OPERATIONS_CHUNK_SIZE) {
+            List<Integer> chunk = validPositions.subList(from,
+                    Math.min(from + LIKE_OPERATIONS_CHUNK_SIZE, validPositions.size()));
+            List<LikeOperationStatus> chunkStatuses = filmRepository.applyLikes(chunk.stream()
+                    .map(operations::get)
+                    .toList());
+            for (int j = 0; j < chunk.size(); j++) {
+                statuses[chunk.get(j)] = chunkStatuses.get(j);
+            }
+        }
+        List<LikeOperationResultDto> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            results.add(operation == null
+                    ? new LikeOperationResultDto(null, null, null, statuses[i])
+                    : new LikeOperationResultDto(operation.getUserId(), operation.getFilmId(), operation.getOp(),
+                    statuses[i]));
+        }
+        return results;
+    }
+
+    @Override
+    public List<FilmDto> getTheMostPopularFilms(Integer count, Integer genreId, Integer year) {
+        if (count != null && count > MAX_POPULAR_FILMS) {
+            throw new ConditionsNotMetException("Количество популярных фильмов должно быть не больше " + MAX_POPULAR_FILMS);
+        }
+        return filmRepository.getTheMostPopularFilms(count, genreId, year).stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FilmDto> getRecommendations(Long userId, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_RECOMMENDATIONS) {
+            throw new ConditionsNotMetException("Количество рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        List<Film> recommendations = filmRepository.getRecommendations(userId, limit);
+        if (recommendations.isEmpty() && !userRepository.findMissingIds(List.of(userId)).isEmpty()) {
+            throw new NotFoundException(String.format(USER_NOT_FOUND, userId));
+        }
+        return recommendations.stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+    }
+
     @Override
-    public List<FilmDto> getTheMostPopularFilms(Integer count) {
-        return filmRepository.getTheMostPopularFilms(count).stream()
+    public List<FilmDto> searchFilms(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new ConditionsNotMetException("Строка поиска не должна быть пустой");
+        }
+        if (limit == null || limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            throw new ConditionsNotMetException("Количество результатов поиска должно быть от 1 до " + MAX_SEARCH_RESULTS);
+        }
+        return filmRepository.searchFilms(query, limit).stream()
                 .map(mapper::toDto)
                 .collect(Collectors.toList());
     }
@@ -68,10 +145,54 @@ public class FilmServiceImpl implements FilmService {
         return mapper.toDto(filmFromRepository);
     }
 
+    // Повторы в списке отбрасываются, отсутствующие фильмы перечисляются в missingIds
+    @Override
+    public MultiGetDto<FilmDto> getFilmsByIds(List<Long> ids) {
+        List<Long> filmIds = distinctIds(ids);
+        List<FilmDto> films = filmRepository.getFilmsByIds(filmIds).stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+        Set<Long> foundIds = films.stream()
+                .map(FilmDto::getId)
+                .collect(Collectors.toSet());
+        List<Long> missingIds = filmIds.stream()
+                .filter(id -> !foundIds.contains(id))
+                .toList();
+        return new MultiGetDto<>(films, missingIds);
+    }
+
     @Override
     public List<FilmDto> getAllFilms() {
         return filmRepository.getAllFilms().stream()
                 .map(mapper::toDto)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    @Override
+    public int exportFilms(Consumer<FilmDto> consumer) {
+        return filmRepository.exportFilms(film -> consumer.accept(mapper.toDto(film)));
+    }
+
+    @Override
+    public PageDto<FilmDto> getFilmsPage(Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<FilmDto> films = filmRepository.getFilmsPage(after == null ? 0 : after, limit).stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+        Long nextCursor = films.size() == limit ? films.getLast().getId() : null;
+        return new PageDto<>(films, nextCursor);
+    }
+
+    private static List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_IDS) {
+            throw new ConditionsNotMetException("Список должен содержать от 1 до " + MAX_IDS + " id");
+        }
+        return distinctIds;
+    }
+}
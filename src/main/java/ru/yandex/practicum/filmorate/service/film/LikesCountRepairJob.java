@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepositoryInterface;
+
+import java.util.List;
+
+// Сверяет films.likes_count с таблицей likes. Запуск: --filmorate.likes-count.check=verify|repair
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.likes-count.check")
+public class LikesCountRepairJob implements ApplicationRunner {
+    private static final String REPAIR_MODE = "repair";
+
+    private final FilmRepositoryInterface filmRepository;
+
+    @Value("${filmorate.likes-count.check}")
+    private String mode;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> driftedFilmIds = filmRepository.findLikesCountDrift();
+        if (driftedFilmIds.isEmpty()) {
+            log.info("Счётчики лайков согласованы с таблицей likes");
+            return;
+        }
+        log.warn("Счётчики лайков расходятся с таблицей likes у {} фильмов: {}", driftedFilmIds.size(), driftedFilmIds);
+        if (REPAIR_MODE.equalsIgnoreCase(mode)) {
+            int repairedRows = filmRepository.repairLikesCount();
+            log.info("Пересчитаны счётчики лайков у {} фильмов", repairedRows);
+        }
+    }
+}
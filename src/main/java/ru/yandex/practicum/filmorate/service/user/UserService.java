@@ -1,5 +1,7 @@
 package ru.yandex.practicum.filmorate.service.user;
 
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.model.User;
 
@@ -18,5 +20,11 @@ public interface UserService {
 
     List<UserDto> getFriendsList(Long userId);
 
+    List<UserDto> getFriendSuggestions(Long userId, Integer limit);
+
     List<UserDto> getAllUsers();
+
+    MultiGetDto<UserDto> getUsersByIds(List<Long> ids);
+
+    PageDto<UserDto> getUsersPage(Long after, Integer limit);
 }
\ No newline at end of file
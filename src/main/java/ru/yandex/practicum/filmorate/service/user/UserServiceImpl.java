@@ -3,6 +3,8 @@ package ru.yandex.practicum.filmorate.service.user;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.repository.user.UserRepositoryInterface;
+import ru.yandex.practicum.filmorate.dto.MultiGetDto;
+import ru.yandex.practicum.filmorate.dto.PageDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
@@ -10,6 +12,8 @@ import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +22,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepositoryInterface userRepository;
     private final UserMapper mapper;
     private static final String USER_NOT_FOUND = "Пользователь с id = %d не найден";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final int MAX_IDS = 100;
 
     @Override
     public UserDto saveUser(User user) {
@@ -35,49 +42,106 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void addFriend(Long userId, Long friendId) {
-        userRepository.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, userId)));
-        userRepository.getUserById(friendId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, friendId)));
         userRepository.addFriend(userId, friendId);
     }
 
     @Override
     public void deleteFriend(Long userId, Long friendId) {
-        userRepository.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, userId)));
-        userRepository.getUserById(friendId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, friendId)));
         userRepository.deleteFriend(userId, friendId);
     }
 
     @Override
     public List<UserDto> getCommonFriends(Long user1Id, Long user2Id) {
-        userRepository.getUserById(user1Id)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, user1Id)));
-        userRepository.getUserById(user2Id)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, user2Id)));
         if (user1Id.equals(user2Id)) {
+            requireUsersExist(user1Id);
             throw new ConditionsNotMetException("Пользователи должны иметь разные id");
         }
-        return userRepository.getCommonFriends(user1Id, user2Id).stream()
+        List<User> commonFriends = userRepository.getCommonFriends(user1Id, user2Id);
+        if (commonFriends.isEmpty()) {
+            requireUsersExist(user1Id, user2Id);
+        }
+        return commonFriends.stream()
                 .map(mapper::mapToUserDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<UserDto> getFriendsList(Long userId) {
-        userRepository.getUserById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format(USER_NOT_FOUND, userId)));
-        return userRepository.getFriendsList(userId).stream()
+        List<User> friends = userRepository.getFriendsList(userId);
+        if (friends.isEmpty()) {
+            requireUsersExist(userId);
+        }
+        return friends.stream()
                 .map(mapper::mapToUserDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<UserDto> getFriendSuggestions(Long userId, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new ConditionsNotMetException("Количество рекомендаций должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        List<User> suggestions = userRepository.getFriendSuggestions(userId, limit);
+        if (suggestions.isEmpty()) {
+            requireUsersExist(userId);
+        }
+        return suggestions.stream()
+                .map(mapper::mapToUserDto)
+                .collect(Collectors.toList());
+    }
+
+    // Пустой результат неотличим от отсутствующего пользователя, поэтому существование проверяется только в этом случае
+    private void requireUsersExist(Long... userIds) {
+        userRepository.findMissingIds(List.of(userIds)).stream()
+                .findFirst()
+                .ifPresent(id -> {
+                    throw new NotFoundException(String.format(USER_NOT_FOUND, id));
+                });
+    }
+
     @Override
     public List<UserDto> getAllUsers() {
         return userRepository.getAllUsers().stream()
                 .map(mapper::mapToUserDto)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    // Повторы в списке отбрасываются, отсутствующие пользователи перечисляются в missingIds
+    @Override
+    public MultiGetDto<UserDto> getUsersByIds(List<Long> ids) {
+        List<Long> userIds = distinctIds(ids);
+        List<UserDto> users = userRepository.getUsersByIds(userIds).stream()
+                .map(mapper::mapToUserDto)
+                .collect(Collectors.toList());
+        Set<Long> foundIds = users.stream()
+                .map(UserDto::getId)
+                .collect(Collectors.toSet());
+        List<Long> missingIds = userIds.stream()
+                .filter(id -> !foundIds.contains(id))
+                .toList();
+        return new MultiGetDto<>(users, missingIds);
+    }
+
+    @Override
+    public PageDto<UserDto> getUsersPage(Long after, Integer limit) {
+        if (limit == null || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<UserDto> users = userRepository.getUsersPage(after == null ? 0 : after, limit).stream()
+                .map(mapper::mapToUserDto)
+                .collect(Collectors.toList());
+        Long nextCursor = users.size() == limit ? users.getLast().getId() : null;
+        return new PageDto<>(users, nextCursor);
+    }
+
+    private static List<Long> distinctIds(List<Long> ids) {
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_IDS) {
+            throw new ConditionsNotMetException("Список должен содержать от 1 до " + MAX_IDS + " id");
+        }
+        return distinctIds;
+    }
+}
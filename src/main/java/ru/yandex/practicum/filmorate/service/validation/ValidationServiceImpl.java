@@ -122,8 +122,7 @@ public class ValidationServiceImpl implements ValidationService {
     }
 
     private boolean isEmailUsed(String email) {
-        return userRepository.getAllUsers().stream()
-                .anyMatch(user -> user.getEmail().equals(email));
+        return userRepository.existsByEmail(email);
     }
 
     private void validateReleaseDate(LocalDate releaseDate) {
@@ -1,4 +1,5 @@
-INSERT INTO mpa (mpa_id, name)
+-- MERGE, а не INSERT: скрипт выполняется при каждом запуске, в том числе на уже заполненной файловой базе
+MERGE INTO mpa (mpa_id, name) KEY (mpa_id)
     VALUES
         (1, 'G'),
         (2, 'PG'),
@@ -6,11 +7,11 @@ INSERT INTO mpa (mpa_id, name)
         (4, 'R'),
         (5, 'NC-17');
 
-INSERT INTO genres (genre_id, name)
+MERGE INTO genres (genre_id, name) KEY (genre_id)
     VALUES
         (1, 'Комедия'),
         (2, 'Драма'),
         (3, 'Мультфильм'),
         (4, 'Триллер'),
         (5, 'Документальный'),
-        (6, 'Боевик');
\ No newline at end of file
+        (6, 'Боевик');
@@ -23,10 +23,18 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INT NOT NULL,
     mpa_id INT,
+    likes_count INT NOT NULL DEFAULT 0,
     CONSTRAINT positive_duration CHECK (duration > 0),
     CONSTRAINT fk_film_mpa FOREIGN KEY (mpa_id) REFERENCES mpa(mpa_id)
 );
 
+-- Базы, созданные до появления счётчика: CREATE TABLE IF NOT EXISTS их пропускает. После обновления счётчики
+-- нужно пересчитать запуском с --filmorate.likes-count.check=repair
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, film_id);
+CREATE INDEX IF NOT EXISTS idx_films_mpa_id ON films (mpa_id, film_id);
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id BIGINT NOT NULL,
     genre_id INT NOT NULL,
@@ -35,6 +43,10 @@ CREATE TABLE IF NOT EXISTS film_genres (
     FOREIGN KEY (genre_id) REFERENCES genres(genre_id)
 );
 
+-- Обратные индексы к составным первичным ключам: выборки и каскадные удаления по второму столбцу.
+-- H2 сам индексирует внешние ключи, но другие СУБД этого не делают; составной индекс ещё и покрывающий
+CREATE INDEX IF NOT EXISTS idx_film_genres_genre_id ON film_genres (genre_id, film_id);
+
 CREATE TABLE IF NOT EXISTS friends (
     user_id BIGINT NOT NULL,
     friend_id BIGINT NOT NULL,
@@ -43,10 +55,21 @@ CREATE TABLE IF NOT EXISTS friends (
     FOREIGN KEY (friend_id) REFERENCES users(user_id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_friends_friend_id ON friends (friend_id, user_id);
+
 CREATE TABLE IF NOT EXISTS likes (
     film_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
     PRIMARY KEY (film_id, user_id),
     FOREIGN KEY (film_id) REFERENCES films(film_id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_likes_user_id ON likes (user_id, film_id);
+
+-- Отметка времени, которую приложение раз в интервал пишет в основную базу; по её копии на реплике
+-- считается отставание реплики (filmorate.datasource.replicas)
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT PRIMARY KEY,
+    beat TIMESTAMP NOT NULL
+);
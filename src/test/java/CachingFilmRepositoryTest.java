@@ -0,0 +1,92 @@
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.film.CachingFilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({CachingFilmRepository.class, FilmRepository.class, PopularFilmsLeaderboard.class, LikesMatrix.class, FilmSearchIndex.class, LikeWriteBehindBuffer.class, ReferenceDataRegistry.class, FilmRowMapper.class, EntityVersions.class})
+@ContextConfiguration(classes = FilmorateApplication.class)
+public class CachingFilmRepositoryTest {
+    private final CachingFilmRepository filmRepository;
+
+    private Film testFilm;
+
+    @BeforeEach
+    public void setUp() {
+        testFilm = filmRepository.saveFilm(
+                new Film(null, "Test Film", "Description",
+                        LocalDate.of(1966, 6, 6), 120, List.of(), new Mpa(3, "PG-13")));
+    }
+
+    @Test
+    public void getFilmById_SecondCallShouldBeServedFromCache() {
+        long hitsBefore = filmRepository.getStats().hitCount();
+        long missesBefore = filmRepository.getStats().missCount();
+
+        filmRepository.getFilmById(testFilm.getId());
+        filmRepository.getFilmById(testFilm.getId());
+
+        assertThat(filmRepository.getStats().missCount() - missesBefore).isEqualTo(1);
+        assertThat(filmRepository.getStats().hitCount() - hitsBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void updateFilm_ShouldInvalidateCachedFilm() {
+        assertThat(filmRepository.getFilmById(testFilm.getId()).orElseThrow().getName()).isEqualTo("Test Film");
+
+        testFilm.setName("Updated Film");
+        filmRepository.updateFilm(testFilm);
+
+        assertThat(filmRepository.getFilmById(testFilm.getId()).orElseThrow().getName()).isEqualTo("Updated Film");
+    }
+
+    @Test
+    public void getFilmById_MissingFilmShouldNotBeCached() {
+        long missesBefore = filmRepository.getStats().missCount();
+
+        assertThat(filmRepository.getFilmById(999L)).isEmpty();
+        assertThat(filmRepository.getFilmById(999L)).isEmpty();
+
+        assertThat(filmRepository.getStats().missCount() - missesBefore).isEqualTo(2);
+    }
+
+    @Test
+    public void getFilmsByIds_ShouldLoadOnlyUncachedFilms() {
+        Film secondFilm = filmRepository.saveFilm(
+                new Film(null, "Second Film", "Description", LocalDate.of(1970, 1, 1), 90, List.of(), new Mpa(1, "G")));
+        filmRepository.getFilmById(testFilm.getId());
+        long hitsBefore = filmRepository.getStats().hitCount();
+        long missesBefore = filmRepository.getStats().missCount();
+
+        assertThat(filmRepository.getFilmsByIds(List.of(secondFilm.getId(), 999L, testFilm.getId())))
+                .extracting(Film::getId)
+                .containsExactly(secondFilm.getId(), testFilm.getId());
+        assertThat(filmRepository.getStats().hitCount() - hitsBefore).isEqualTo(1);
+        assertThat(filmRepository.getStats().missCount() - missesBefore).isEqualTo(2);
+        assertThat(filmRepository.getFilmById(secondFilm.getId())).isPresent();
+        assertThat(filmRepository.getStats().hitCount() - hitsBefore).isEqualTo(2);
+    }
+}
@@ -0,0 +1,51 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Условные GET по ETag из EntityVersions: 304 только для существующих фильмов и пользователей
+@SpringBootTest(classes = FilmorateApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ConditionalRequestsTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void unknownIdsShouldGet404WhateverTheETag() throws Exception {
+        mvc.perform(get("/films/999999").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/users/999999/friends").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void readFilmShouldBeRevalidatedByItsETag() throws Exception {
+        String created = mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"name":"Зеркало","description":"Фильм","releaseDate":"1975-03-07","duration":108,
+                         "mpa":{"id":1}}"""))
+                .andReturn().getResponse().getContentAsString();
+        long filmId = objectMapper.readTree(created).get("id").asLong();
+
+        String eTag = mvc.perform(get("/films/" + filmId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        mvc.perform(get("/films/" + filmId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+}
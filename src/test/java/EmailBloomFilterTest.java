@@ -0,0 +1,36 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.user.EmailBloomFilter;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmailBloomFilterTest {
+
+    @Test
+    void addedEmailsShouldAlwaysBeReportedAsPossiblyUsed() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 1000, 0.01);
+        IntStream.range(0, 1000).forEach(i -> filter.put("user" + i + "@test.org"));
+
+        assertThat(IntStream.range(0, 1000))
+                .allMatch(i -> filter.mightContain("user" + i + "@test.org"));
+    }
+
+    @Test
+    void falsePositiveRateShouldStayNearConfiguredValue() {
+        EmailBloomFilter filter = new EmailBloomFilter(true, 10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@test.org"));
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("other" + i + "@test.org"))
+                .count();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void disabledFilterShouldNeverRejectEmail() {
+        EmailBloomFilter filter = new EmailBloomFilter(false, 1000, 0.01);
+
+        assertThat(filter.mightContain("user@test.org")).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.TransactionHooks;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntityVersionsTest {
+    private final EntityVersions versions = new EntityVersions();
+
+    @Test
+    void filmChangeShouldMoveFilmAndPopularETags() {
+        String film = versions.filmRead(1);
+        String otherFilm = versions.filmRead(2);
+        String popular = versions.popularFilmsETag();
+
+        versions.filmChanged(1);
+
+        assertThat(versions.filmETag(1)).isNotEqualTo(film);
+        assertThat(versions.filmETag(2)).isEqualTo(otherFilm);
+        assertThat(versions.popularFilmsETag()).isNotEqualTo(popular);
+    }
+
+    @Test
+    void likesChangeShouldMoveOnlyPopularETag() {
+        String film = versions.filmRead(1);
+        String popular = versions.popularFilmsETag();
+
+        versions.likesChanged();
+
+        assertThat(versions.filmETag(1)).isEqualTo(film);
+        assertThat(versions.popularFilmsETag()).isNotEqualTo(popular);
+    }
+
+    @Test
+    void friendsETagShouldDependOnOwnListAndAnyUserProfile() {
+        String friends = versions.friendsRead(1, versions.usersVersion());
+        String otherFriends = versions.friendsRead(2, versions.usersVersion());
+
+        versions.friendsChanged(1);
+        assertThat(versions.friendsETag(1)).isNotEqualTo(friends);
+        assertThat(versions.friendsETag(2)).isEqualTo(otherFriends);
+
+        versions.userChanged();
+        assertThat(versions.friendsETag(2)).isNotEqualTo(otherFriends);
+    }
+
+    @Test
+    void versionShouldAppearOnlyAfterChangeOrRead() {
+        assertThat(versions.filmETag(5)).isNull();
+        assertThat(versions.friendsETag(5)).isNull();
+
+        String read = versions.filmRead(5);
+        assertThat(read).isNotNull().isEqualTo(versions.filmETag(5));
+
+        // Изменение во время чтения: прочитанное могло устареть и версию не получает
+        versions.filmChanged(6);
+        assertThat(versions.filmRead(6)).isNull();
+    }
+
+    @Test
+    void rollbackShouldMoveVersionAfterCompensations() {
+        TransactionSynchronizationManager.initSynchronization();
+        AtomicReference<String> seenByCompensation = new AtomicReference<>();
+        String duringTransaction;
+        try {
+            versions.likesChanged();
+            duringTransaction = versions.popularFilmsETag();
+            TransactionHooks.onRollback(() -> seenByCompensation.set(versions.popularFilmsETag()));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(seenByCompensation.get()).isEqualTo(duringTransaction);
+        assertThat(versions.popularFilmsETag()).isNotEqualTo(duringTransaction);
+    }
+
+    @Test
+    void versionsShouldNotRepeatAcrossRestarts() throws InterruptedException {
+        Thread.sleep(2);
+        assertThat(new EntityVersions().filmRead(1)).isNotEqualTo(versions.filmRead(1));
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.film.FilmCsvReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FilmCsvReaderTest {
+
+    @Test
+    void shouldReadQuotedFieldsAndMapColumnsByHeader() throws IOException {
+        FilmCsvReader csv = new FilmCsvReader(new StringReader("""
+                duration,name,releaseDate,mpaId,genreIds,description\r
+                96,"Сталкер, фильм",1979-05-25,3,2;6,"Зона ""исполняет""
+                желания"\r
+
+                60,Короткий,2000-01-01,,,
+                """));
+
+        Film first = csv.toFilm(csv.nextRecord());
+        assertThat(first.getName()).isEqualTo("Сталкер, фильм");
+        assertThat(first.getDescription()).isEqualTo("Зона \"исполняет\"\nжелания");
+        assertThat(first.getReleaseDate()).isEqualTo(LocalDate.of(1979, 5, 25));
+        assertThat(first.getDuration()).isEqualTo(96);
+        assertThat(first.getMpa().getId()).isEqualTo(3);
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(2, 6);
+
+        Film second = csv.toFilm(csv.nextRecord());
+        assertThat(second.getName()).isEqualTo("Короткий");
+        assertThat(second.getDescription()).isNull();
+        assertThat(second.getGenres()).isNull();
+        assertThat(csv.nextRecord()).isNull();
+    }
+
+    @Test
+    void shouldRejectBadValuesAndMissingColumns() throws IOException {
+        FilmCsvReader csv = new FilmCsvReader(new StringReader("name,releaseDate,duration\nФильм,вчера,90\n"));
+        List<String> fields = csv.nextRecord();
+
+        assertThatThrownBy(() -> csv.toFilm(fields)).isInstanceOf(ConditionsNotMetException.class);
+        assertThatThrownBy(() -> new FilmCsvReader(new StringReader("name,duration\n")))
+                .isInstanceOf(ConditionsNotMetException.class);
+        assertThatThrownBy(new FilmCsvReader(new StringReader("name,releaseDate,duration\n\"Фильм"))::nextRecord)
+                .isInstanceOf(IOException.class);
+    }
+}
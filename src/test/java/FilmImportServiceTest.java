@@ -0,0 +1,172 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.dto.FilmImportErrorDto;
+import ru.yandex.practicum.filmorate.dto.FilmImportResultDto;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.service.film.FilmImportServiceImpl;
+import ru.yandex.practicum.filmorate.service.validation.ValidationServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Импорт с пачками по две записи; транзакции пачек настоящие, поэтому названия фильмов в тестах уникальны
+@JdbcTest
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FilmRepository.class, PopularFilmsLeaderboard.class, LikesMatrix.class, FilmSearchIndex.class, LikeWriteBehindBuffer.class, ReferenceDataRegistry.class, FilmRowMapper.class, EntityVersions.class})
+@ContextConfiguration(classes = FilmorateApplication.class)
+public class FilmImportServiceTest {
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private ReferenceDataRegistry referenceData;
+    @Autowired
+    private NamedParameterJdbcOperations jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private FilmImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new FilmImportServiceImpl(filmRepository, new ValidationServiceImpl(null, filmRepository),
+                referenceData, new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(transactionManager), CHUNK_SIZE);
+    }
+
+    @Test
+    void invalidRecordsShouldBeRejectedOneByOne() {
+        FilmImportResultDto result = importJson("[" + film("Отбор 1") + ","
+                + film("") + ","
+                + film("Отбор 3") + ","
+                + "{\"name\":\"Отбор 4\",\"duration\":\"долго\",\"mpa\":{\"id\":1}},"
+                + film("Отбор 5") + ","
+                + film("Отбор 6").replace("\"id\":1", "\"id\":99") + "]");
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(FilmImportErrorDto::getRecord).containsExactly(2, 4, 6);
+        assertThat(storedNames("Отбор %")).containsExactly("Отбор 1", "Отбор 3", "Отбор 5");
+    }
+
+    @Test
+    void recordWithoutMpaShouldBeRejectedAndOthersImported() {
+        FilmImportResultDto json = importJson("[" + film("Без рейтинга 1") + ","
+                + film("Без рейтинга 2").replace(",\"mpa\":{\"id\":1}", "") + ","
+                + film("Без рейтинга 3") + "]");
+
+        assertThat(json.getImported()).isEqualTo(2);
+        assertThat(json.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRecord()).isEqualTo(2);
+            assertThat(error.getMessage()).isEqualTo("Рейтинг MPA должен быть указан");
+        });
+
+        FilmImportResultDto csv = importService.importCsv(new ByteArrayInputStream("""
+                name,releaseDate,duration,mpaId
+                Без рейтинга 4,1972-03-20,120,1
+                Без рейтинга 5,1972-03-20,120,
+                Без рейтинга 6,1972-03-20,120,1
+                """.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(csv.getImported()).isEqualTo(2);
+        assertThat(csv.getErrors()).extracting(FilmImportErrorDto::getRecord).containsExactly(2);
+        assertThat(storedNames("Без рейтинга %"))
+                .containsExactly("Без рейтинга 1", "Без рейтинга 3", "Без рейтинга 4", "Без рейтинга 6");
+    }
+
+    @Test
+    void reportedErrorsShouldBeCapped() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1005; i++) {
+            json.append(i == 0 ? "" : ",").append(film(""));
+        }
+        FilmImportResultDto result = importJson(json.append(']').toString());
+
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getRejected()).isEqualTo(1005);
+        assertThat(result.getErrors()).hasSize(1000);
+    }
+
+    @Test
+    void failedChunkShouldRejectOnlyItsRecords() {
+        // Название длиннее столбца films.name проходит проверку и падает только в базе
+        FilmImportResultDto result = importJson("[" + film("Пачка 1") + ","
+                + film("Пачка " + "я".repeat(100)) + ","
+                + film("Пачка 3") + ","
+                + film("Пачка 4") + ","
+                + film("Пачка 5") + "]");
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(FilmImportErrorDto::getRecord).containsExactly(1, 2);
+        assertThat(result.getErrors()).allSatisfy(error -> assertThat(error.getMessage()).startsWith("Пачка не сохранена"));
+        assertThat(storedNames("Пачка %")).containsExactly("Пачка 3", "Пачка 4", "Пачка 5");
+    }
+
+    @Test
+    void malformedStreamShouldStopImportButKeepParsedRecords() {
+        FilmImportResultDto result = importJson("[" + film("Обрыв 1") + ","
+                + film("Обрыв 2") + ","
+                + film("Обрыв 3") + ",{\"name\":\"Обр");
+
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isZero();
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRecord()).isEqualTo(4);
+            assertThat(error.getMessage()).startsWith("Импорт остановлен");
+        });
+        assertThat(storedNames("Обрыв %")).containsExactly("Обрыв 1", "Обрыв 2", "Обрыв 3");
+
+        FilmImportResultDto notObject = importJson("[" + film("Обрыв 4") + ", 5, " + film("Обрыв 6") + "]");
+        assertThat(notObject.getImported()).isEqualTo(1);
+        assertThat(notObject.getErrors()).extracting(FilmImportErrorDto::getRecord).containsExactly(2);
+    }
+
+    @Test
+    void jsonOtherThanArrayShouldBeRejected() {
+        assertThatThrownBy(() -> importJson(film("Не массив")))
+                .isInstanceOf(ConditionsNotMetException.class);
+        assertThat(storedNames("Не массив")).isEmpty();
+    }
+
+    private FilmImportResultDto importJson(String json) {
+        return importService.importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String film(String name) {
+        return "{\"name\":\"" + name + "\",\"description\":\"Описание\",\"releaseDate\":\"1972-03-20\","
+                + "\"duration\":120,\"mpa\":{\"id\":1}}";
+    }
+
+    private List<String> storedNames(String pattern) {
+        return jdbc.queryForList("SELECT name FROM films WHERE name LIKE :pattern ORDER BY name",
+                new MapSqlParameterSource("pattern", pattern), String.class);
+    }
+}
@@ -5,18 +5,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.test.context.ContextConfiguration;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationStatus;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.repository.user.EmailBloomFilter;
+import ru.yandex.practicum.filmorate.repository.user.FriendshipGraph;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -26,11 +42,12 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmRepository.class, FilmMapper.class, UserRepository.class, UserRowMapper.class})
+@Import({FilmRepository.class, PopularFilmsLeaderboard.class, LikesMatrix.class, FilmSearchIndex.class, LikeWriteBehindBuffer.class, ReferenceDataRegistry.class, FilmRowMapper.class, FilmMapper.class, UserRepository.class, UserRowMapper.class, EmailBloomFilter.class, FriendshipGraph.class, EntityVersions.class})
 @ContextConfiguration(classes = FilmorateApplication.class)
 public class FilmRepositoryTest {
     private final FilmRepository filmStorage;
     private final UserRepository userRepository;
+    private final NamedParameterJdbcOperations jdbc;
 
     private Long testFilm1Id;
     private Long testFilm2Id;
@@ -76,6 +93,79 @@ public class FilmRepositoryTest {
         assertThat(films).extracting(Film::getId).containsExactlyInAnyOrder(testFilm1Id, testFilm2Id);
     }
 
+    @Test
+    public void testGetAllFilms_AttachesGenresToEachFilm() {
+        Long filmWithGenresId = filmStorage.saveFilm(
+                new Film(null, "Test Film 3", "Description 3", LocalDate.of(1970, 10, 10), 120,
+                        List.of(new Genre(2, "Драма"), new Genre(1, "Комедия")), new Mpa(3, "PG-13"))
+        ).getId();
+
+        List<Film> films = filmStorage.getAllFilms();
+        assertThat(films).extracting(Film::getId).containsExactly(testFilm1Id, testFilm2Id, filmWithGenresId);
+        assertThat(films.get(0).getGenres()).isEmpty();
+        assertThat(films.get(2).getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(filmStorage.getFilmById(filmWithGenresId).orElseThrow().getGenres())
+                .extracting(Genre::getName)
+                .containsExactly("Комедия", "Драма");
+    }
+
+    @Test
+    public void testLoadedFilms_ShareReferenceDataInstances() {
+        filmStorage.saveFilm(new Film(null, "Test Film 3", "Description 3", LocalDate.of(1970, 10, 10), 120,
+                List.of(new Genre(1, "Комедия")), new Mpa(1, "G")));
+        filmStorage.saveFilm(new Film(null, "Test Film 4", "Description 4", LocalDate.of(1971, 11, 11), 100,
+                List.of(new Genre(1, "Комедия")), new Mpa(1, "G")));
+
+        List<Film> films = filmStorage.getAllFilms();
+        assertThat(films.get(2).getMpa()).isSameAs(films.get(3).getMpa()).isSameAs(films.get(1).getMpa());
+        assertThat(films.get(2).getGenres().getFirst()).isSameAs(films.get(3).getGenres().getFirst());
+        assertThat(films.get(2).getMpa().getName()).isEqualTo("G");
+    }
+
+    @Test
+    public void testAddFilm_WithUnknownGenre_ShouldThrowNotFound() {
+        Film film = new Film(null, "Test Film 3", "Description 3", LocalDate.of(1970, 10, 10), 120,
+                List.of(new Genre(999, "Нет такого")), new Mpa(1, "G"));
+
+        assertThatThrownBy(() -> filmStorage.saveFilm(film)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void testSaveFilms() {
+        List<Film> films = filmStorage.saveFilms(List.of(
+                new Film(null, "Batch Film 1", "Description", LocalDate.of(2001, 1, 1), 100,
+                        List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")), new Mpa(2, "PG")),
+                new Film(null, "Batch Film 2", null, LocalDate.of(2002, 2, 2), 110, null, null)));
+
+        assertThat(films).extracting(Film::getId).doesNotContainNull().doesNotHaveDuplicates();
+        Film first = filmStorage.getFilmById(films.get(0).getId()).orElseThrow();
+        assertThat(first.getGenres()).extracting(Genre::getId).containsExactly(1, 2);
+        assertThat(first.getMpa().getId()).isEqualTo(2);
+        assertThat(filmStorage.searchFilms("batch", 10)).hasSize(2);
+        assertThat(filmStorage.getTheMostPopularFilms(10, 2, 2001)).extracting(Film::getId)
+                .containsExactly(first.getId());
+    }
+
+    @Test
+    public void testGetFilmsPage() {
+        assertThat(filmStorage.getFilmsPage(0, 1))
+                .extracting(Film::getId)
+                .containsExactly(testFilm1Id);
+        assertThat(filmStorage.getFilmsPage(testFilm1Id, 10))
+                .extracting(Film::getId)
+                .containsExactly(testFilm2Id);
+        assertThat(filmStorage.getFilmsPage(testFilm2Id, 10)).isEmpty();
+    }
+
+    @Test
+    public void testExportFilms() {
+        List<Film> exported = new ArrayList<>();
+        int count = filmStorage.exportFilms(exported::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(exported).extracting(Film::getId).containsExactly(testFilm1Id, testFilm2Id);
+    }
+
     @Test
     public void testUpdateFilm_NotFound() {
         Long nonExistentFilmId = 999L;
@@ -90,7 +180,7 @@ public class FilmRepositoryTest {
     @Test
     public void testAddLike() {
         filmStorage.addLike(testUserId, testFilm1Id);
-        List<Film> popularFilms = filmStorage.getTheMostPopularFilms(1);
+        List<Film> popularFilms = filmStorage.getTheMostPopularFilms(1, null, null);
         assertThat(popularFilms).hasSize(1);
         assertThat(popularFilms.get(0).getId()).isEqualTo(testFilm1Id);
         List<Long> likes = filmStorage.getLikes(testFilm1Id);
@@ -106,6 +196,99 @@ public class FilmRepositoryTest {
         assertThat(filmStorage.getLikes(testFilm1Id)).isEmpty();
     }
 
+    @Test
+    public void testAddLike_Duplicate() {
+        filmStorage.addLike(testUserId, testFilm1Id);
+        assertThatThrownBy(() -> filmStorage.addLike(testUserId, testFilm1Id))
+                .isInstanceOf(DuplicatedDataException.class);
+    }
+
+    @Test
+    public void testAddLike_UnknownUserOrFilm() {
+        assertThatThrownBy(() -> filmStorage.addLike(999L, testFilm1Id))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Пользователь с id = 999 не найден");
+        assertThatThrownBy(() -> filmStorage.addLike(testUserId, 999L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Фильм с id = 999 не найден");
+    }
+
+    @Test
+    public void testRemoveLike_NotFound() {
+        assertThatThrownBy(() -> filmStorage.removeLike(testUserId, testFilm1Id))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Лайк не найден");
+        assertThatThrownBy(() -> filmStorage.removeLike(testUserId, 999L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Фильм с id = 999 не найден");
+    }
+
+    @Test
+    public void testApplyLikes() {
+        List<LikeOperationStatus> statuses = filmStorage.applyLikes(List.of(
+                new LikeOperation(testUserId, testFilm2Id, LikeOperation.Type.ADD),
+                new LikeOperation(testUserId, testFilm2Id, LikeOperation.Type.ADD),
+                new LikeOperation(testUserId, testFilm1Id, LikeOperation.Type.REMOVE),
+                new LikeOperation(999L, testFilm1Id, LikeOperation.Type.ADD),
+                new LikeOperation(testUserId, 999L, LikeOperation.Type.ADD),
+                new LikeOperation(testUserId, testFilm1Id, LikeOperation.Type.ADD),
+                new LikeOperation(testUserId, testFilm1Id, LikeOperation.Type.REMOVE)));
+
+        assertThat(statuses).containsExactly(
+                LikeOperationStatus.APPLIED,
+                LikeOperationStatus.ALREADY_LIKED,
+                LikeOperationStatus.NOT_LIKED,
+                LikeOperationStatus.USER_NOT_FOUND,
+                LikeOperationStatus.FILM_NOT_FOUND,
+                LikeOperationStatus.APPLIED,
+                LikeOperationStatus.APPLIED);
+        assertThat(filmStorage.getLikes(testFilm1Id)).isEmpty();
+        assertThat(filmStorage.getLikes(testFilm2Id)).containsExactly(testUserId);
+        assertThat(filmStorage.getTheMostPopularFilms(1, null, null))
+                .extracting(Film::getId)
+                .containsExactly(testFilm2Id);
+        assertThat(filmStorage.findLikesCountDrift()).isEmpty();
+    }
+
+    @Test
+    public void testGetRecommendations() {
+        Long similarUserId = userRepository.saveUser(
+                new User(null, "similar@test.com", "similarUser",
+                        "Similar User", LocalDate.of(1992, 2, 2))
+        ).getId();
+        filmStorage.addLike(testUserId, testFilm1Id);
+        filmStorage.addLike(similarUserId, testFilm1Id);
+        filmStorage.addLike(similarUserId, testFilm2Id);
+
+        assertThat(filmStorage.getRecommendations(testUserId, 10))
+                .extracting(Film::getId)
+                .containsExactly(testFilm2Id);
+
+        filmStorage.removeLike(similarUserId, testFilm1Id);
+        assertThat(filmStorage.getRecommendations(testUserId, 10)).isEmpty();
+    }
+
+    @Test
+    public void testSearchFilms() {
+        Long russianFilmId = filmStorage.saveFilm(
+                new Film(null, "Ёжик в тумане", "Мультфильм о ёжике", LocalDate.of(1975, 1, 1), 10,
+                        List.of(), new Mpa(1, "G"))
+        ).getId();
+        filmStorage.addLike(testUserId, testFilm2Id);
+
+        assertThat(filmStorage.searchFilms("test fi", 10))
+                .extracting(Film::getId)
+                .containsExactly(testFilm2Id, testFilm1Id);
+        assertThat(filmStorage.searchFilms("ЕЖИК", 10)).extracting(Film::getId).containsExactly(russianFilmId);
+        assertThat(filmStorage.searchFilms("ёжике мульт", 10)).extracting(Film::getId).containsExactly(russianFilmId);
+        assertThat(filmStorage.searchFilms("test", 1)).extracting(Film::getId).containsExactly(testFilm2Id);
+
+        filmStorage.updateFilm(new Film(russianFilmId, "Сказка сказок", "Мультфильм", LocalDate.of(1979, 1, 1),
+                29, List.of(), new Mpa(1, "G")));
+        assertThat(filmStorage.searchFilms("ежик", 10)).isEmpty();
+        assertThat(filmStorage.searchFilms("сказ", 10)).extracting(Film::getId).containsExactly(russianFilmId);
+    }
+
     @Test
     public void testGetTheMostPopularFilms() {
         filmStorage.addLike(testUserId, testFilm1Id);
@@ -116,17 +299,94 @@ public class FilmRepositoryTest {
         filmStorage.addLike(secondUserId, testFilm1Id);
         filmStorage.addLike(testUserId, testFilm2Id);
 
-        List<Film> popularFilms = filmStorage.getTheMostPopularFilms(2);
+        List<Film> popularFilms = filmStorage.getTheMostPopularFilms(2, null, null);
         assertThat(popularFilms).hasSize(2);
 
         assertThat(popularFilms.get(0).getId()).isEqualTo(testFilm1Id);
         assertThat(popularFilms.get(1).getId()).isEqualTo(testFilm2Id);
 
-        List<Film> singlePopularFilm = filmStorage.getTheMostPopularFilms(1);
+        List<Film> singlePopularFilm = filmStorage.getTheMostPopularFilms(1, null, null);
         assertThat(singlePopularFilm).hasSize(1);
         assertThat(singlePopularFilm.get(0).getId()).isEqualTo(testFilm1Id);
     }
 
+    @Test
+    public void testGetTheMostPopularFilms_HugeCountReturnsWholeRanking() {
+        assertThat(filmStorage.getTheMostPopularFilms(Integer.MAX_VALUE, null, null))
+                .extracting(Film::getId)
+                .contains(testFilm1Id, testFilm2Id);
+    }
+
+    @Test
+    public void testGetTheMostPopularFilms_ByGenreAndYear() {
+        Long comedyId = filmStorage.saveFilm(
+                new Film(null, "Comedy", "Comedy 2023", LocalDate.of(2023, 3, 3), 90,
+                        List.of(new Genre(1, "Комедия")), new Mpa(1, "G"))
+        ).getId();
+        Long dramaticComedyId = filmStorage.saveFilm(
+                new Film(null, "Dramatic comedy", "Comedy and drama 2023", LocalDate.of(2023, 4, 4), 100,
+                        List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")), new Mpa(1, "G"))
+        ).getId();
+        filmStorage.addLike(testUserId, dramaticComedyId);
+
+        assertThat(filmStorage.getTheMostPopularFilms(10, 1, 2023))
+                .extracting(Film::getId)
+                .containsExactly(dramaticComedyId, comedyId);
+        assertThat(filmStorage.getTheMostPopularFilms(10, 2, null))
+                .extracting(Film::getId)
+                .containsExactly(dramaticComedyId);
+        assertThat(filmStorage.getTheMostPopularFilms(10, null, 1966))
+                .extracting(Film::getId)
+                .containsExactly(testFilm1Id);
+        assertThat(filmStorage.getTheMostPopularFilms(10, 1, 1966)).isEmpty();
+        assertThatThrownBy(() -> filmStorage.getTheMostPopularFilms(10, 999, null))
+                .isInstanceOf(NotFoundException.class);
+
+        filmStorage.updateFilm(new Film(comedyId, "Comedy", "Comedy 2024", LocalDate.of(2024, 1, 1), 90,
+                List.of(new Genre(2, "Драма")), new Mpa(1, "G")));
+        assertThat(filmStorage.getTheMostPopularFilms(10, 1, 2023))
+                .extracting(Film::getId)
+                .containsExactly(dramaticComedyId);
+        assertThat(filmStorage.getTheMostPopularFilms(10, 2, 2024))
+                .extracting(Film::getId)
+                .containsExactly(comedyId);
+
+        filmStorage.updateFilm(new Film(comedyId, "Comedy", "Comedy 2024", LocalDate.of(2024, 1, 1), 90,
+                null, new Mpa(1, "G")));
+        assertThat(filmStorage.getTheMostPopularFilms(10, 2, 2024))
+                .extracting(Film::getId)
+                .containsExactly(comedyId);
+    }
+
+    @Test
+    public void testGetTheMostPopularFilms_AfterRemoveLike() {
+        filmStorage.addLike(testUserId, testFilm2Id);
+        assertThat(filmStorage.getTheMostPopularFilms(2, null, null))
+                .extracting(Film::getId)
+                .containsExactly(testFilm2Id, testFilm1Id);
+
+        filmStorage.removeLike(testUserId, testFilm2Id);
+        assertThat(filmStorage.getTheMostPopularFilms(2, null, null))
+                .extracting(Film::getId)
+                .containsExactly(testFilm1Id, testFilm2Id);
+    }
+
+    @Test
+    public void testLikesCountDrift_IsDetectedAndRepaired() {
+        filmStorage.addLike(testUserId, testFilm1Id);
+        assertThat(filmStorage.findLikesCountDrift()).isEmpty();
+
+        jdbc.update("UPDATE films SET likes_count = 5 WHERE film_id = :id",
+                new MapSqlParameterSource("id", testFilm2Id));
+        assertThat(filmStorage.findLikesCountDrift()).containsExactly(testFilm2Id);
+
+        assertThat(filmStorage.repairLikesCount()).isEqualTo(1);
+        assertThat(filmStorage.findLikesCountDrift()).isEmpty();
+        assertThat(filmStorage.getTheMostPopularFilms(1, null, null))
+                .extracting(Film::getId)
+                .containsExactly(testFilm1Id);
+    }
+
     @Test
     public void testGetFilmById() {
         Film film = filmStorage.getFilmById(testFilm1Id).orElseThrow();
@@ -139,6 +399,14 @@ public class FilmRepositoryTest {
         assertThat(film.getMpa().getName()).isEqualTo("PG-13");
     }
 
+    @Test
+    public void testGetFilmsByIds() {
+        List<Film> films = filmStorage.getFilmsByIds(List.of(testFilm2Id, 999L, testFilm1Id));
+
+        assertThat(films).extracting(Film::getId).containsExactly(testFilm2Id, testFilm1Id);
+        assertThat(films.get(1).getMpa().getName()).isEqualTo("PG-13");
+    }
+
     @Test
     public void testGetFilmById_NotFound() {
         Long nonExistentFilmId = 999L;
@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilmSearchIndexTest {
+
+    @Test
+    void searchShouldMatchAllWordsAndRankByLikes() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.reset(Map.of(1L, 5L, 2L, 10L, 3L, 0L));
+        FilmSearchIndex index = new FilmSearchIndex(leaderboard);
+        index.reset(Map.of(
+                1L, "Матрица. Фантастический боевик",
+                2L, "Матрица: Перезагрузка - боевик",
+                3L, "Мастер и Маргарита"));
+
+        assertThat(index.search("матрица", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("боевик матр", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("ма", 10)).containsExactly(2L, 1L, 3L);
+        assertThat(index.search("ма", 1)).containsExactly(2L);
+        assertThat(index.search("фантастический матрица", 10)).containsExactly(1L);
+        assertThat(index.search("комедия", 10)).isEmpty();
+        assertThat(index.search(" -- ", 10)).isEmpty();
+    }
+
+    @Test
+    void largeCandidateSetsShouldBeRankedThroughLeaderboard() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        Map<Long, Long> likes = new HashMap<>();
+        Map<Long, String> texts = new HashMap<>();
+        for (long filmId = 1; filmId <= 1000; filmId++) {
+            likes.put(filmId, filmId % 100);
+            texts.put(filmId, filmId % 2 == 0 ? "чётный фильм " + filmId : "нечётный фильм " + filmId);
+        }
+        leaderboard.reset(likes);
+        FilmSearchIndex index = new FilmSearchIndex(leaderboard);
+        index.reset(texts);
+
+        assertThat(index.search("фильм", 3)).containsExactly(99L, 199L, 299L);
+        assertThat(index.search("фильм нечет", 3)).containsExactly(99L, 199L, 299L);
+        assertThat(index.search("четный фи", 3)).containsExactly(98L, 198L, 298L);
+        assertThat(index.search("фильм 10", 3)).containsExactly(10L, 109L, 108L);
+    }
+
+    @Test
+    void indexAndRestoreShouldReplaceFilmWords() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.addFilm(1);
+        FilmSearchIndex index = new FilmSearchIndex(leaderboard);
+
+        assertThat(index.index(1, "Солярис", null)).isNull();
+        String[] previous = index.index(1, "Сталкер", "Зона");
+        assertThat(index.search("солярис", 10)).isEmpty();
+        assertThat(index.search("зона стал", 10)).containsExactly(1L);
+
+        index.restore(1, previous);
+        assertThat(index.search("солярис", 10)).containsExactly(1L);
+        assertThat(index.search("сталкер", 10)).isEmpty();
+
+        index.restore(1, null);
+        assertThat(index.search("солярис", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void addAllAndRemoveAllShouldIndexFilmsInBatches() {
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard();
+        leaderboard.reset(Map.of(1L, 1L, 2L, 2L, 3L, 3L));
+        FilmSearchIndex index = new FilmSearchIndex(leaderboard);
+        index.reset(Map.of(1L, "Сталкер"));
+
+        index.addAll(Map.of(2L, "Сталкер. Пикник", 3L, "Пикник у дороги"));
+        assertThat(index.search("сталкер", 10)).containsExactly(2L, 1L);
+        assertThat(index.search("пикник", 10)).containsExactly(3L, 2L);
+
+        index.removeAll(List.of(2L, 3L));
+        assertThat(index.search("сталкер", 10)).containsExactly(1L);
+        assertThat(index.search("пикник", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.user.FriendshipGraph;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FriendshipGraphTest {
+
+    @Test
+    void commonFriendsShouldBeSortedIntersection() {
+        FriendshipGraph graph = new FriendshipGraph();
+        graph.reset(Map.of(
+                1L, new long[]{9, 3, 5, 7},
+                2L, new long[]{5, 2, 9, 4}));
+
+        assertThat(graph.commonFriends(1, 2)).containsExactly(5, 9);
+        assertThat(graph.commonFriends(1, 42)).isEmpty();
+    }
+
+    @Test
+    void addAndRemoveShouldKeepFriendsSortedAndUnique() {
+        FriendshipGraph graph = new FriendshipGraph();
+        graph.addFriend(1, 5);
+        graph.addFriend(1, 2);
+        graph.addFriend(1, 8);
+        graph.addFriend(1, 5);
+        assertThat(graph.friendsOf(1)).containsExactly(2, 5, 8);
+
+        graph.removeFriend(1, 5);
+        graph.removeFriend(1, 100);
+        assertThat(graph.friendsOf(1)).containsExactly(2, 8);
+
+        graph.removeFriend(1, 2);
+        graph.removeFriend(1, 8);
+        assertThat(graph.friendsOf(1)).isEmpty();
+    }
+
+    @Test
+    void suggestionsShouldBeRankedByMutualFriendsExcludingExistingFriends() {
+        FriendshipGraph graph = new FriendshipGraph();
+        graph.reset(Map.of(
+                1L, new long[]{2, 3, 4},
+                2L, new long[]{1, 3, 5, 6},
+                3L, new long[]{5, 6, 7},
+                4L, new long[]{6}));
+
+        assertThat(graph.suggestions(1, 2))
+                .extracting(FriendshipGraph.Suggestion::userId)
+                .containsExactly(6L, 5L);
+        assertThat(graph.suggestions(1, 10))
+                .extracting(FriendshipGraph.Suggestion::mutualFriends)
+                .containsExactly(3, 2, 1);
+    }
+
+    @Test
+    void suggestionsForHighDegreeUserShouldCountAllMutualFriends() {
+        FriendshipGraph graph = new FriendshipGraph();
+        for (long friendId = 2; friendId <= 1001; friendId++) {
+            graph.addFriend(1, friendId);
+            graph.addFriend(friendId, 5000 + friendId % 7);
+        }
+
+        assertThat(graph.suggestions(1, 3))
+                .containsExactly(
+                        new FriendshipGraph.Suggestion(5000, 143),
+                        new FriendshipGraph.Suggestion(5002, 143),
+                        new FriendshipGraph.Suggestion(5003, 143));
+    }
+}
@@ -11,9 +11,15 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
 import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
 import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
-import ru.yandex.practicum.filmorate.repository.mappers.GenreRowMapper;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -23,7 +29,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({GenreRepository.class, GenreRowMapper.class, FilmRepository.class})
+@Import({GenreRepository.class, FilmRepository.class, PopularFilmsLeaderboard.class, LikesMatrix.class, FilmSearchIndex.class, LikeWriteBehindBuffer.class, ReferenceDataRegistry.class, FilmRowMapper.class, EntityVersions.class})
 @ContextConfiguration(classes = FilmorateApplication.class)
 public class GenreRepositoryTest {
 
@@ -0,0 +1,29 @@
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Замена репликации для тестов: sync() переносит на вторую базу H2 полный снимок основной
+// (SCRIPT на основной, затем DROP ALL OBJECTS и выполнение снимка на реплике). Между вызовами
+// sync() реплика отстаёт от основной базы, как при асинхронной репликации
+public class H2ReplicationShim {
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+
+    public H2ReplicationShim(DataSource primary, String replicaUrl, String username, String password) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(new SimpleDriverDataSource(new org.h2.Driver(), replicaUrl, username, password));
+    }
+
+    public void sync() {
+        List<String> snapshot = primary.queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        snapshot.forEach(replica::execute);
+    }
+
+    // Прямой доступ к реплике - чтобы проверить её содержимое или изобразить отставание
+    public JdbcTemplate replica() {
+        return replica;
+    }
+}
@@ -0,0 +1,361 @@
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+import ru.yandex.practicum.filmorate.repository.film.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.repository.mappers.FilmRowMapper;
+import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.user.EmailBloomFilter;
+import ru.yandex.practicum.filmorate.repository.user.FriendshipGraph;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Лайки с отложенной записью: сброс только вручную, записи в базу коммитятся по-настоящему
+@JdbcTest(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-size=1000000",
+        "filmorate.likes.write-behind.flush-interval=1h"
+})
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmRepository.class, PopularFilmsLeaderboard.class, LikesMatrix.class, FilmSearchIndex.class, LikeWriteBehindBuffer.class, ReferenceDataRegistry.class, FilmRowMapper.class, UserRepository.class, UserRowMapper.class, EmailBloomFilter.class, FriendshipGraph.class, EntityVersions.class})
+@ContextConfiguration(classes = FilmorateApplication.class)
+public class LikeWriteBehindBufferTest {
+    @TempDir
+    static Path journalDir;
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikeWriteBehindBuffer likeBuffer;
+    private final NamedParameterJdbcOperations jdbc;
+    private final PlatformTransactionManager transactionManager;
+
+    private Long filmId;
+    private Long otherFilmId;
+    private Long userId;
+    private Long otherUserId;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) {
+        registry.add("filmorate.likes.write-behind.journal-dir", () -> journalDir.resolve("app").toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        filmId = saveFilm("Солярис");
+        otherFilmId = saveFilm("Сталкер");
+        userId = saveUser();
+        otherUserId = saveUser();
+    }
+
+    @Test
+    void likesShouldBeReadableBeforeFlushAndWrittenInOneBatch() {
+        filmRepository.addLike(userId, filmId);
+        filmRepository.addLike(otherUserId, filmId);
+        filmRepository.addLike(otherUserId, otherFilmId);
+        filmRepository.removeLike(otherUserId, otherFilmId);
+
+        assertThatThrownBy(() -> filmRepository.addLike(userId, filmId)).isInstanceOf(DuplicatedDataException.class);
+        assertThatThrownBy(() -> filmRepository.removeLike(userId, otherFilmId)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> filmRepository.addLike(-1L, filmId)).isInstanceOf(NotFoundException.class);
+        assertThat(storedLikes(filmId)).isEmpty();
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId, otherUserId);
+        assertThat(filmRepository.getLikes(otherFilmId)).isEmpty();
+        assertThat(filmRepository.getTheMostPopularFilms(1, null, null))
+                .extracting(Film::getId)
+                .containsExactly(filmId);
+
+        likeBuffer.flush();
+        assertThat(likeBuffer.pendingSize()).isZero();
+        assertThat(storedLikes(filmId)).containsExactly(userId, otherUserId);
+        assertThat(storedLikes(otherFilmId)).isEmpty();
+        assertThat(likesCount(filmId)).isEqualTo(2);
+        assertThat(likesCount(otherFilmId)).isZero();
+
+        filmRepository.removeLike(otherUserId, filmId);
+        assertThat(filmRepository.getLikes(filmId)).containsExactly(userId);
+        likeBuffer.flush();
+        assertThat(storedLikes(filmId)).containsExactly(userId);
+        assertThat(likesCount(filmId)).isEqualTo(1);
+    }
+
+    @Test
+    void journalShouldRestoreUnflushedLikesAfterCrash() throws IOException {
+        Path dir = journalDir.resolve("crash");
+        LikeWriteBehindBuffer crashed = buffer(dir);
+        crashed.start();
+        assertThat(crashed.record(userId, filmId, true)).isTrue();
+        assertThat(crashed.record(otherUserId, filmId, true)).isTrue();
+        assertThat(crashed.record(otherUserId, filmId, false)).isTrue();
+        assertThat(crashed.record(userId, otherFilmId, true)).isTrue();
+        // Оборванная при сбое запись в конце сегмента
+        try (var segments = Files.list(dir)) {
+            Path segment = segments.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        }
+        assertThat(storedLikes(filmId)).isEmpty();
+
+        LikeWriteBehindBuffer restarted = buffer(dir);
+        restarted.start();
+        assertThat(storedLikes(filmId)).containsExactly(userId);
+        assertThat(storedLikes(otherFilmId)).containsExactly(userId);
+        assertThat(likesCount(filmId)).isEqualTo(1);
+        restarted.close();
+
+        // Повторное применение того же журнала не меняет счётчики
+        LikeWriteBehindBuffer replayed = buffer(dir);
+        replayed.start();
+        assertThat(likesCount(filmId)).isEqualTo(1);
+        replayed.close();
+    }
+
+    @Test
+    void batchShouldApplyOperationsInOrderAndRollBackWhenJournalFails() throws IOException {
+        LikesMatrix matrix = new LikesMatrix();
+        LikeWriteBehindBuffer buffer = buffer(journalDir.resolve("batch"), matrix);
+        buffer.start();
+        List<Boolean> changed = buffer.record(List.of(
+                new LikeOperation(userId, filmId, LikeOperation.Type.ADD),
+                new LikeOperation(userId, filmId, LikeOperation.Type.ADD),
+                new LikeOperation(otherUserId, filmId, LikeOperation.Type.ADD),
+                new LikeOperation(otherUserId, filmId, LikeOperation.Type.REMOVE),
+                new LikeOperation(userId, filmId, LikeOperation.Type.REMOVE),
+                new LikeOperation(userId, filmId, LikeOperation.Type.ADD)));
+        assertThat(changed).containsExactly(true, false, true, true, true, true);
+        assertThat(buffer.pendingForFilm(filmId)).containsExactlyEntriesOf(Map.of(userId, true));
+        assertThat(matrix.hasLike(userId, filmId)).isTrue();
+        assertThat(matrix.hasLike(otherUserId, filmId)).isFalse();
+        buffer.close();
+
+        // Журнал закрыт: запись не удаётся, и ни буфер, ни матрица лайков не меняются
+        assertThatThrownBy(() -> buffer.record(otherUserId, otherFilmId, true))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(buffer.pendingSize()).isZero();
+        assertThat(buffer.pendingForFilm(otherFilmId)).isEmpty();
+        assertThat(matrix.hasLike(otherUserId, otherFilmId)).isFalse();
+    }
+
+    @Test
+    void failedJournalWritesShouldNotBeRestoredAfterCrash() throws IOException {
+        Path dir = journalDir.resolve("faulty");
+        FaultyDisk disk = new FaultyDisk();
+        LikesMatrix matrix = new LikesMatrix();
+        LikeWriteBehindBuffer crashed = new LikeWriteBehindBuffer(jdbc, transactionManager, matrix, true, dir,
+                1_000_000, Duration.ofHours(1), true, disk::open);
+        crashed.start();
+        assertThat(crashed.record(userId, filmId, true)).isTrue();
+
+        // fsync не удался: лайк не виден и не попадёт в базу после перезапуска
+        disk.failForce = true;
+        assertThatThrownBy(() -> crashed.record(otherUserId, filmId, true)).isInstanceOf(UncheckedIOException.class);
+        disk.failForce = false;
+        assertThat(matrix.hasLike(otherUserId, filmId)).isFalse();
+        assertThat(crashed.pendingForFilm(filmId)).containsOnlyKeys(userId);
+
+        // Запись оборвалась на середине: следующие записи не сдвигаются
+        disk.failWriteAfter = 5;
+        assertThatThrownBy(() -> crashed.record(otherUserId, otherFilmId, true))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(crashed.record(userId, otherFilmId, true)).isTrue();
+
+        // Сегмент не удалось обрезать: он закрывается с длиной подтверждённой части в имени
+        disk.failForce = true;
+        disk.failTruncate = true;
+        assertThatThrownBy(() -> crashed.record(otherUserId, filmId, true)).isInstanceOf(UncheckedIOException.class);
+        disk.failForce = false;
+        disk.failTruncate = false;
+        assertThat(crashed.record(otherUserId, otherFilmId, true)).isTrue();
+
+        LikeWriteBehindBuffer restarted = buffer(dir);
+        restarted.start();
+        assertThat(storedLikes(filmId)).containsExactly(userId);
+        assertThat(storedLikes(otherFilmId)).containsExactly(userId, otherUserId);
+        restarted.close();
+    }
+
+    private LikeWriteBehindBuffer buffer(Path dir) {
+        return buffer(dir, new LikesMatrix());
+    }
+
+    private LikeWriteBehindBuffer buffer(Path dir, LikesMatrix matrix) {
+        return new LikeWriteBehindBuffer(jdbc, transactionManager, matrix, true, dir, 1_000_000,
+                Duration.ofHours(1), true);
+    }
+
+    private List<Long> storedLikes(long filmId) {
+        return jdbc.queryForList("SELECT user_id FROM likes WHERE film_id = :filmId ORDER BY user_id",
+                new MapSqlParameterSource("filmId", filmId), Long.class);
+    }
+
+    private long likesCount(long filmId) {
+        return jdbc.queryForObject("SELECT likes_count FROM films WHERE film_id = :filmId",
+                new MapSqlParameterSource("filmId", filmId), Long.class);
+    }
+
+    private Long saveFilm(String name) {
+        return filmRepository.saveFilm(new Film(null, name, "Описание", LocalDate.of(1972, 3, 20), 120,
+                List.of(), new Mpa(1, "G"))).getId();
+    }
+
+    private Long saveUser() {
+        String login = "user" + System.nanoTime();
+        return userRepository.saveUser(new User(null, login + "@test.org", login, login,
+                LocalDate.of(1990, 1, 1))).getId();
+    }
+
+    // Сегменты журнала с ошибками диска по требованию
+    private static class FaultyDisk {
+        volatile boolean failForce;
+        volatile boolean failTruncate;
+        volatile int failWriteAfter = -1;
+
+        FileChannel open(Path segment) throws IOException {
+            FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            return new FileChannel() {
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    if (failWriteAfter >= 0) {
+                        ByteBuffer part = src.slice().limit(Math.min(failWriteAfter, src.remaining()));
+                        failWriteAfter = -1;
+                        src.position(src.position() + channel.write(part));
+                        throw new IOException("Диск переполнен");
+                    }
+                    return channel.write(src);
+                }
+
+                @Override
+                public void force(boolean metaData) throws IOException {
+                    if (failForce) {
+                        throw new IOException("Ошибка fsync");
+                    }
+                    channel.force(metaData);
+                }
+
+                @Override
+                public FileChannel truncate(long size) throws IOException {
+                    if (failTruncate) {
+                        throw new IOException("Ошибка обрезки");
+                    }
+                    channel.truncate(size);
+                    return this;
+                }
+
+                @Override
+                public long size() throws IOException {
+                    return channel.size();
+                }
+
+                @Override
+                public long position() throws IOException {
+                    return channel.position();
+                }
+
+                @Override
+                public FileChannel position(long newPosition) throws IOException {
+                    channel.position(newPosition);
+                    return this;
+                }
+
+                @Override
+                public int read(ByteBuffer dst) throws IOException {
+                    return channel.read(dst);
+                }
+
+                @Override
+                public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                    return channel.read(dsts, offset, length);
+                }
+
+                @Override
+                public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                    return channel.write(srcs, offset, length);
+                }
+
+                @Override
+                public int read(ByteBuffer dst, long position) throws IOException {
+                    return channel.read(dst, position);
+                }
+
+                @Override
+                public int write(ByteBuffer src, long position) throws IOException {
+                    return channel.write(src, position);
+                }
+
+                @Override
+                public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                    return channel.transferTo(position, count, target);
+                }
+
+                @Override
+                public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                    return channel.transferFrom(src, position, count);
+                }
+
+                @Override
+                public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                    return channel.map(mode, position, size);
+                }
+
+                @Override
+                public FileLock lock(long position, long size, boolean shared) throws IOException {
+                    return channel.lock(position, size, shared);
+                }
+
+                @Override
+                public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                    return channel.tryLock(position, size, shared);
+                }
+
+                @Override
+                protected void implCloseChannel() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.repository.film.LikesMatrix;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LikesMatrixTest {
+
+    @Test
+    void recommendationsShouldComeFromUsersWithOverlappingLikes() {
+        LikesMatrix matrix = new LikesMatrix();
+        matrix.reset(Map.of(
+                1L, new long[]{10, 20, 30},
+                2L, new long[]{10, 20, 30, 40, 50},
+                3L, new long[]{10, 50, 60},
+                4L, new long[]{70}));
+
+        assertThat(matrix.recommend(1, 10)).containsExactly(50L, 40L, 60L);
+        assertThat(matrix.recommend(1, 1)).containsExactly(50L);
+        assertThat(matrix.recommend(5, 10)).isEmpty();
+    }
+
+    @Test
+    void incrementalUpdatesShouldChangeRecommendations() {
+        LikesMatrix matrix = new LikesMatrix();
+        matrix.addLike(1, 10);
+        matrix.addLike(2, 10);
+        matrix.addLike(2, 20);
+        assertThat(matrix.recommend(1, 10)).containsExactly(20L);
+
+        matrix.addLike(1, 20);
+        assertThat(matrix.recommend(1, 10)).isEmpty();
+
+        matrix.removeLike(1, 20);
+        matrix.removeLike(2, 10);
+        assertThat(matrix.recommend(1, 10)).isEmpty();
+    }
+}
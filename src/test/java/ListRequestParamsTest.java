@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Выбор между списком, страницей и мульти-гетом по параметрам запроса GET /films и GET /users
+// и границы параметров списочных запросов
+@SpringBootTest(classes = FilmorateApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ListRequestParamsTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void idsWithLimitShouldBeRejected() throws Exception {
+        for (String path : new String[]{"/films", "/users"}) {
+            mvc.perform(get(path).param("ids", "1").param("limit", "5"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void idsOrLimitAloneShouldSelectTheirHandlers() throws Exception {
+        for (String path : new String[]{"/films", "/users"}) {
+            mvc.perform(get(path).param("ids", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.missingIds").isArray());
+            mvc.perform(get(path).param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items").isArray());
+        }
+    }
+
+    @Test
+    void hugePopularCountShouldBeRejected() throws Exception {
+        mvc.perform(get("/films/popular").param("count", "2000000000"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/films/popular").param("count", "1000"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,150 @@
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.LikeWriteBehindBuffer;
+import ru.yandex.practicum.filmorate.repository.genre.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.mpa.MpaRepository;
+import ru.yandex.practicum.filmorate.repository.user.UserRepository;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// EXPLAIN каждого SQL-запроса репозиториев на заполненной базе: полный проход по большой таблице допустим
+// только у запросов из FULL_SCANS, которые и должны читать таблицу целиком
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = FilmorateApplication.class)
+public class QueryPlanTest {
+    private static final List<Class<?>> REPOSITORIES = List.of(FilmRepository.class,
+            LikeWriteBehindBuffer.class, UserRepository.class, GenreRepository.class, MpaRepository.class);
+    private static final Set<String> LARGE_TABLES = Set.of("FILMS", "USERS", "LIKES", "FRIENDS", "FILM_GENRES");
+    // Загрузка in-memory индексов при старте, выгрузки и сверка счётчиков лайков
+    private static final Set<String> FULL_SCANS = Set.of(
+            "FilmRepository.GET_ALL_FILMS",
+            "FilmRepository.EXPORT_ALL_FILMS",
+            "FilmRepository.GET_ALL_FILM_GENRES",
+            "FilmRepository.GET_POPULAR_FILMS",
+            "FilmRepository.GET_SEARCHABLE_TEXT",
+            "FilmRepository.GET_ALL_LIKES",
+            "FilmRepository.FIND_LIKES_COUNT_DRIFT",
+            "UserRepository.GET_ALL_USERS",
+            "UserRepository.GET_ALL_EMAILS",
+            "UserRepository.GET_ALL_FRIENDSHIPS");
+    // Выборки по второму столбцу составных ключей, которых нет среди констант, - каскадные удаления
+    // и обратные связи
+    private static final Map<String, String> REVERSE_LOOKUPS = Map.of(
+            "likes by user", "SELECT film_id FROM likes WHERE user_id = :id",
+            "friends by friend", "SELECT user_id FROM friends WHERE friend_id = :id",
+            "film_genres by genre", "SELECT film_id FROM film_genres WHERE genre_id = :id",
+            "films by mpa", "SELECT film_id FROM films WHERE mpa_id = :id");
+    private static final Pattern SQL = Pattern.compile("(?is)^\\s*(SELECT|INSERT|UPDATE|DELETE|MERGE|WITH)\\b.*");
+    private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):([a-zA-Z]\\w*)");
+    // Комментарий плана без условия: /* PUBLIC.FILMS.tableScan */ или /* PUBLIC.PRIMARY_KEY_3 */
+    private static final Pattern SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+?)(\\.tableScan)? \\*/");
+    private static final int ROWS = 2000;
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    @Test
+    void queriesShouldNotScanLargeTables() throws IllegalAccessException {
+        seed();
+        Map<String, String> indexTables = new LinkedHashMap<>();
+        jdbc.getJdbcOperations().query("""
+                SELECT index_name, table_name FROM information_schema.indexes WHERE table_schema = 'PUBLIC'""",
+                rs -> {
+                    indexTables.put(rs.getString("index_name"), rs.getString("table_name"));
+                });
+
+        Map<String, String> statements = repositoryStatements();
+        assertThat(statements.keySet()).containsAll(FULL_SCANS);
+        statements.putAll(REVERSE_LOOKUPS);
+
+        List<String> regressions = new ArrayList<>();
+        statements.forEach((name, sql) -> {
+            String plan = explain(sql);
+            if (!FULL_SCANS.contains(name) && scansLargeTable(plan, indexTables)) {
+                regressions.add(name + ":\n" + plan);
+            }
+        });
+        assertThat(regressions).as("Запросы с полным проходом по большой таблице").isEmpty();
+    }
+
+    private Map<String, String> repositoryStatements() throws IllegalAccessException {
+        Map<String, String> statements = new LinkedHashMap<>();
+        for (Class<?> repository : REPOSITORIES) {
+            for (Field field : repository.getDeclaredFields()) {
+                if (field.getType() != String.class || !Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                String value = (String) field.get(null);
+                if (SQL.matcher(value).matches()) {
+                    statements.put(repository.getSimpleName() + "." + field.getName(), value);
+                }
+            }
+        }
+        return statements;
+    }
+
+    // Все параметры - 1: для плана важны только столбцы условий, а IN (:ids) превращается в IN (?)
+    private String explain(String sql) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        NAMED_PARAMETER.matcher(sql).results().forEach(match -> params.addValue(match.group(1), 1));
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, params, String.class));
+    }
+
+    private static boolean scansLargeTable(String plan, Map<String, String> indexTables) {
+        Matcher scan = SCAN.matcher(plan);
+        while (scan.find()) {
+            String table = scan.group(2) != null ? scan.group(1) : indexTables.get(scan.group(1));
+            if (LARGE_TABLES.contains(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Планировщик H2 учитывает число строк, поэтому таблицы заполняются и собирается статистика
+    private void seed() {
+        Date date = Date.valueOf(LocalDate.of(2000, 1, 1));
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> genres = new ArrayList<>();
+        List<Object[]> pairs = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            users.add(new Object[]{id, "user" + id + "@test.org", "user" + id, date});
+            films.add(new Object[]{id, "Film " + id, date, (int) (id % 5) + 1});
+            genres.add(new Object[]{id, (int) (id % 6) + 1});
+            for (long other = 1; other <= 3; other++) {
+                pairs.add(new Object[]{id, (id + other * 97) % ROWS + 1});
+            }
+        }
+        var operations = jdbc.getJdbcOperations();
+        operations.batchUpdate("INSERT INTO users (user_id, email, login, birthday) VALUES (?, ?, ?, ?)", users);
+        operations.batchUpdate("""
+                INSERT INTO films (film_id, name, release_date, duration, mpa_id) VALUES (?, ?, ?, 100, ?)""", films);
+        operations.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genres);
+        operations.batchUpdate("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", pairs);
+        operations.batchUpdate("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", pairs);
+        operations.execute("ANALYZE");
+    }
+}
@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.ReferenceDataRegistry;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReferenceDataRegistryTest {
+    private final Genre comedy = new Genre(1, "Комедия");
+    private final Genre drama = new Genre(2, "Драма");
+    private final Mpa g = new Mpa(1, "G");
+    private final Mpa pg = new Mpa(2, "PG");
+
+    private final ReferenceDataRegistry registry = new ReferenceDataRegistry(List.of(drama, comedy), List.of(pg, g));
+
+    @Test
+    void lookupsShouldReturnCanonicalInstances() {
+        assertThat(registry.genre(1)).isSameAs(comedy);
+        assertThat(registry.mpa(2)).isSameAs(pg);
+        assertThat(registry.findGenre(2)).containsSame(drama);
+    }
+
+    @Test
+    void unknownIdsShouldNotBeFound() {
+        assertThat(registry.genre(0)).isNull();
+        assertThat(registry.genre(-1)).isNull();
+        assertThat(registry.genre(3)).isNull();
+        assertThat(registry.findMpa(100)).isEmpty();
+    }
+
+    @Test
+    void listsShouldBeSortedByIdAndImmutable() {
+        assertThat(registry.getGenres()).containsExactly(comedy, drama);
+        assertThat(registry.getMpaRatings()).containsExactly(g, pg);
+        assertThatThrownBy(() -> registry.getGenres().add(new Genre(3, "Мультфильм")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,152 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.config.ReplicaRoutingDataSource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.film.FilmRepositoryInterface;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Чтение readOnly-методов репозитория с реплики; реплика - вторая база H2, которую H2ReplicationShim
+// синхронизирует только по явному вызову. Планировщик отметок отключён длинным интервалом.
+// Выборки по id (мульти-гет, топ, поиск, друзья) кэшируются или помечаются ETag по основной базе,
+// поэтому должны видеть только что записанные данные при отстающей реплике
+@SpringBootTest(classes = FilmorateApplication.class, webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "filmorate.datasource.replicas=" + ReplicaRoutingTest.REPLICA_URL,
+                "filmorate.datasource.replica-max-staleness=1m",
+                "filmorate.datasource.replica-heartbeat-interval=1h"
+        })
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+    @Autowired
+    private HikariDataSource primaryDataSource;
+    @Autowired
+    private FilmRepositoryInterface cachingFilmRepository;
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private H2ReplicationShim shim;
+
+    @BeforeEach
+    void setUp() {
+        shim = new H2ReplicationShim(primaryDataSource, REPLICA_URL, "sa", "");
+        routing.writeHeartbeat();
+        shim.sync();
+        routing.checkReplicas();
+    }
+
+    @Test
+    void readOnlyReadsShouldGoToFreshReplicaAndWritesToPrimary() {
+        assertThat(routing.getFreshReplicas()).containsExactly(0);
+        Film film = filmRepository.saveFilm(new Film(null, "Солярис", "Станция над океаном",
+                LocalDate.of(1972, 3, 20), 167, List.of(), new Mpa(2, "PG")));
+
+        assertThat(filmRepository.getFilmById(film.getId())).isPresent();
+        assertThat(ids(filmRepository.getAllFilms())).doesNotContain(film.getId());
+        assertThat(ids(filmRepository.getFilmsByIds(List.of(film.getId())))).containsExactly(film.getId());
+
+        shim.sync();
+        assertThat(ids(filmRepository.getAllFilms())).contains(film.getId());
+    }
+
+    @Test
+    void staleReplicaShouldBeSkippedUntilItCatchesUp() {
+        Film film = filmRepository.saveFilm(new Film(null, "Сталкер", "Зона",
+                LocalDate.of(1979, 5, 25), 163, List.of(), new Mpa(2, "PG")));
+        shim.replica().update("UPDATE replication_heartbeat SET beat = ?",
+                Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+
+        routing.checkReplicas();
+        assertThat(routing.getFreshReplicas()).isEmpty();
+        assertThat(ids(filmRepository.getAllFilms())).contains(film.getId());
+
+        routing.writeHeartbeat();
+        shim.sync();
+        routing.checkReplicas();
+        assertThat(routing.getFreshReplicas()).containsExactly(0);
+    }
+
+    @Test
+    void idDrivenReadsShouldSeeWritesBeforeReplicaCatchesUp() throws Exception {
+        String created = mvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"name": "Зеркало", "description": "Воспоминания", "releaseDate": "1975-03-07",
+                         "duration": 108, "mpa": {"id": 2}}"""))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long filmId = objectMapper.readTree(created).get("id").asLong();
+
+        mvc.perform(get("/films").param("ids", String.valueOf(filmId)))
+                .andExpect(jsonPath("$.items[0].id").value(filmId))
+                .andExpect(jsonPath("$.missingIds", empty()));
+        mvc.perform(get("/films/popular").param("count", "1000"))
+                .andExpect(jsonPath("$[*].id", hasItem((int) filmId)));
+        mvc.perform(get("/films/search").param("q", "зеркало"))
+                .andExpect(jsonPath("$[*].id", contains((int) filmId)));
+
+        // Мульти-гет после обновления не должен вернуть в кэш фильмов прежнюю строку
+        mvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"id": %d, "name": "Зеркало (1975)", "description": "Воспоминания",
+                         "releaseDate": "1975-03-07", "duration": 108, "mpa": {"id": 2}}""".formatted(filmId)))
+                .andExpect(status().isOk());
+        mvc.perform(get("/films").param("ids", String.valueOf(filmId)))
+                .andExpect(jsonPath("$.items[0].name").value("Зеркало (1975)"));
+        assertThat(cachingFilmRepository.getFilmById(filmId)).get()
+                .extracting(Film::getName)
+                .isEqualTo("Зеркало (1975)");
+        mvc.perform(get("/films/{id}", filmId))
+                .andExpect(jsonPath("$.name").value("Зеркало (1975)"));
+
+        long userId = createUser("mirror1");
+        long friendId = createUser("mirror2");
+        mvc.perform(put("/users/{userId}/friends/{friendId}", userId, friendId)).andExpect(status().isOk());
+        mvc.perform(get("/users/{userId}/friends", userId))
+                .andExpect(jsonPath("$[*].id", contains((int) friendId)));
+    }
+
+    private long createUser(String login) throws Exception {
+        String created = mvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content("""
+                        {"email": "%s@test.org", "login": "%s", "birthday": "1990-01-01"}""".formatted(login, login)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(created).get("id").asLong();
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
@@ -0,0 +1,100 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.controller.SerializedResponseCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SerializedResponseCacheTest {
+    private final SerializedResponseCache cache = new SerializedResponseCache(new ObjectMapper(), 100, true);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<List<String>> body = () -> {
+        loads.incrementAndGet();
+        return List.of("Комедия", "Драма");
+    };
+
+    @Test
+    void sameVersionShouldReuseSerializedBytes() {
+        ResponseEntity<byte[]> first = cache.respond(request(null, null), "genres", "v1", body);
+        ResponseEntity<byte[]> second = cache.respond(request(null, null), "genres", "v1", body);
+
+        assertThat(loads).hasValue(1);
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(new String(first.getBody(), StandardCharsets.UTF_8))
+                .isEqualTo("[\"Комедия\",\"Драма\"]");
+    }
+
+    @Test
+    void newVersionShouldReserialize() {
+        cache.respond(request(null, null), "films/popular?count=10", "v1", body);
+        cache.respond(request(null, null), "films/popular?count=10", "v2", body);
+        cache.respond(request(null, null), "films/popular?count=5", "v2", body);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void gzipShouldBeServedWhenAccepted() throws IOException {
+        ResponseEntity<byte[]> response = cache.respond(request("gzip, deflate", null), "genres", "v1", body);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertThat(gzip.readAllBytes())
+                    .isEqualTo(cache.respond(request(null, null), "genres", "v1", body).getBody());
+        }
+    }
+
+    @Test
+    void gzipShouldFollowAcceptEncodingWeights() {
+        assertThat(contentEncoding("gzip;q=0, deflate")).isNull();
+        assertThat(contentEncoding("GZIP; q=0.000")).isNull();
+        assertThat(contentEncoding("*;q=0.5, gzip;q=0")).isNull();
+        assertThat(contentEncoding("br, *;q=0")).isNull();
+        assertThat(contentEncoding("deflate, x-gzip")).isEqualTo("gzip");
+        assertThat(contentEncoding("br;q=1.0, gzip;q=0.1")).isEqualTo("gzip");
+        assertThat(contentEncoding("*")).isEqualTo("gzip");
+    }
+
+    @Test
+    void matchingETagShouldSkipLoadingAndSerialization() {
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletWebRequest request = new ServletWebRequest(get(null, "\"v1\""), servletResponse);
+
+        assertThat(cache.respond(request, "genres", "v1", body)).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        assertThat(loads).hasValue(0);
+    }
+
+    private String contentEncoding(String acceptEncoding) {
+        return cache.respond(request(acceptEncoding, null), "genres", "v1", body)
+                .getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+    }
+
+    private static ServletWebRequest request(String acceptEncoding, String ifNoneMatch) {
+        return new ServletWebRequest(get(acceptEncoding, ifNoneMatch), new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletRequest get(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/genres");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
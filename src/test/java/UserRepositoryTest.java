@@ -7,19 +7,24 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ContextConfiguration;
 import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.EntityVersions;
 import ru.yandex.practicum.filmorate.repository.mappers.UserRowMapper;
+import ru.yandex.practicum.filmorate.repository.user.EmailBloomFilter;
+import ru.yandex.practicum.filmorate.repository.user.FriendshipGraph;
 import ru.yandex.practicum.filmorate.repository.user.UserRepository;
 
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserRepository.class, UserRowMapper.class})
+@Import({UserRepository.class, UserRowMapper.class, EmailBloomFilter.class, FriendshipGraph.class, EntityVersions.class})
 @ContextConfiguration(classes = FilmorateApplication.class)
 public class UserRepositoryTest {
 
@@ -63,6 +68,14 @@ public class UserRepositoryTest {
         assertThat(savedUser.getBirthday()).isEqualTo(LocalDate.of(2010, 12, 15));
     }
 
+    @Test
+    void getUsersByIdsShouldKeepRequestOrderAndSkipMissing() {
+        assertThat(userRepository.getUsersByIds(List.of(secondUserId, 999L, firstUserId)))
+                .extracting(User::getId)
+                .containsExactly(secondUserId, firstUserId);
+        assertThat(userRepository.getUsersByIds(List.of())).isEmpty();
+    }
+
     @Test
     void shouldUpdateOnlyAllowedFields() {
         User originalUser = userRepository.getUserById(firstUserId).orElseThrow();
@@ -93,6 +106,22 @@ public class UserRepositoryTest {
                 .contains(firstUserId, secondUserId);
     }
 
+    @Test
+    void shouldFindExistingEmail() {
+        assertThat(userRepository.existsByEmail("user1@test.org")).isTrue();
+        assertThat(userRepository.existsByEmail("unknown@test.org")).isFalse();
+    }
+
+    @Test
+    void shouldReturnUsersPageAfterCursor() {
+        assertThat(userRepository.getUsersPage(0, 1))
+                .extracting(User::getId)
+                .containsExactly(firstUserId);
+        assertThat(userRepository.getUsersPage(firstUserId, 10))
+                .extracting(User::getId)
+                .containsExactly(secondUserId);
+    }
+
     @Test
     void shouldAddFriendToFriendsList() {
         userRepository.addFriend(firstUserId, secondUserId);
@@ -110,6 +139,40 @@ public class UserRepositoryTest {
         assertThat(userRepository.getFriendsList(firstUserId)).isEmpty();
     }
 
+    @Test
+    void shouldRejectFriendshipWithUnknownUser() {
+        assertThatThrownBy(() -> userRepository.addFriend(firstUserId, 999L))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Пользователь с id = 999 не найден");
+        assertThatThrownBy(() -> userRepository.deleteFriend(999L, firstUserId))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessageContaining("Пользователь с id = 999 не найден");
+    }
+
+    @Test
+    void shouldFindMissingIds() {
+        assertThat(userRepository.findMissingIds(List.of(firstUserId, 999L, secondUserId)))
+                .containsExactly(999L);
+    }
+
+    @Test
+    void shouldSuggestFriendsOfFriends() {
+        User friendOfFriend = userRepository.saveUser(
+                User.builder()
+                        .email("fof@example.com")
+                        .login("friend-of-friend")
+                        .name("Friend Of Friend")
+                        .birthday(LocalDate.of(2001, 2, 3))
+                        .build());
+        userRepository.addFriend(firstUserId, secondUserId);
+        userRepository.addFriend(secondUserId, friendOfFriend.getId());
+        userRepository.addFriend(secondUserId, firstUserId);
+
+        assertThat(userRepository.getFriendSuggestions(firstUserId, 10))
+                .extracting(User::getId)
+                .containsExactly(friendOfFriend.getId());
+    }
+
     @Test
     void shouldIdentifyMutualConnections() {
         User mutualFriend = userRepository.saveUser(
@@ -127,5 +190,8 @@ public class UserRepositoryTest {
         assertThat(commonFriends)
                 .anyMatch(user -> user.getId().equals(mutualFriend.getId()))
                 .hasSize(1);
+
+        userRepository.deleteFriend(secondUserId, mutualFriend.getId());
+        assertThat(userRepository.getCommonFriends(firstUserId, secondUserId)).isEmpty();
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+import ru.yandex.practicum.filmorate.config.VirtualThreadsConfig;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualThreadsConfigTest {
+
+    @Test
+    void poolShouldBeSizedByConfiguredLimit() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("filmorate.datasource.virtual-threads.max-pool-size", "3");
+        HikariDataSource dataSource = postProcess(environment);
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(3);
+    }
+
+    @Test
+    void poolShouldLeaveOneCarrierFreeButKeepOneConnection() {
+        HikariDataSource dataSource = postProcess(new MockEnvironment());
+
+        assertThat(dataSource.getMaximumPoolSize())
+                .isEqualTo(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @Test
+    void explicitHikariPoolSizeShouldBeLeftToPropertyBinding() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "20");
+        HikariDataSource dataSource = postProcess(environment);
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(new HikariDataSource().getMaximumPoolSize());
+    }
+
+    private HikariDataSource postProcess(MockEnvironment environment) {
+        BeanPostProcessor postProcessor = VirtualThreadsConfig.virtualThreadsPoolSizing(environment);
+        return (HikariDataSource) postProcessor.postProcessAfterInitialization(new HikariDataSource(), "dataSource");
+    }
+}